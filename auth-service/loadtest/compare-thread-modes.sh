@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Runs the same authenticated read load against auth-service twice, once on Tomcat's
+# platform thread pool and once on virtual threads, and prints throughput and p99 for
+# both. Uses the datasource from application.properties unless SPRING_DATASOURCE_* is set,
+# and the dev profile (built-in JWT key) unless SPRING_PROFILES_ACTIVE is set.
+#
+#   LOAD_EMAIL=admin@example.com LOAD_PASSWORD=secret ./loadtest/compare-thread-modes.sh
+#
+# Optional: LOAD_CONCURRENCY (default 400), LOAD_DURATION (default PT60S),
+#           LOAD_PATH (default /api/auth/whoami), SERVER_PORT (default 8080),
+#           MANAGEMENT_PORT (default 8081).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+: "${LOAD_EMAIL:?set LOAD_EMAIL}"
+: "${LOAD_PASSWORD:?set LOAD_PASSWORD}"
+CONCURRENCY="${LOAD_CONCURRENCY:-400}"
+DURATION="${LOAD_DURATION:-PT60S}"
+LOAD_PATH="${LOAD_PATH:-/api/auth/whoami}"
+PORT="${SERVER_PORT:-8080}"
+MANAGEMENT_PORT="${MANAGEMENT_PORT:-8081}"
+
+./mvnw -q -DskipTests package test-compile
+JAR="$(ls target/auth-service-*.jar | head -n 1)"
+
+run_mode() {
+    local virtual="$1"
+    java -jar "$JAR" --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" \
+        --spring.profiles.active="${SPRING_PROFILES_ACTIVE:-dev}" --spring.threads.virtual.enabled="$virtual" \
+        > "target/thread-mode-virtual-$virtual.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' RETURN
+    until curl -s -o /dev/null "http://localhost:$MANAGEMENT_PORT/actuator/health"; do sleep 1; done
+
+    java -cp target/test-classes \
+        -Dload.baseUrl="http://localhost:$PORT" \
+        -Dload.email="$LOAD_EMAIL" -Dload.password="$LOAD_PASSWORD" \
+        -Dload.concurrency="$CONCURRENCY" -Dload.duration="$DURATION" \
+        -Dload.path="$LOAD_PATH" -Dload.name="virtual-threads=$virtual" \
+        com.example.auth_service.loadtest.LoadDriver
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run_mode false
+run_mode true
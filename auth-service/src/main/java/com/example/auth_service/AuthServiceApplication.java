@@ -5,12 +5,18 @@ import java.sql.DatabaseMetaData;
 
 import javax.sql.DataSource;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@Slf4j
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class AuthServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(AuthServiceApplication.class, args);
@@ -21,9 +27,7 @@ public class AuthServiceApplication {
         return args -> {
             try (Connection connection = dataSource.getConnection()) {
                 DatabaseMetaData metaData = connection.getMetaData();
-                System.out.println("Connected to database: " + metaData.getDatabaseProductName());
-                System.out.println("Database exists: " + 
-                    connection.getCatalog().equals("document_management_auth"));
+                log.info("Connected to {} database {}", metaData.getDatabaseProductName(), connection.getCatalog());
             }
         };
     }
@@ -2,11 +2,17 @@ package com.example.auth_service.config;
 
 import com.example.auth_service.service.CustomUserDetailsService;
 import com.example.auth_service.service.JwtService;
+import com.example.auth_service.service.TokenRevocationService;
+import com.example.auth_service.service.TokenVersionRegistry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,11 +21,33 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final Counter authenticated;
+    private final Counter rejected;
+
+    // Build the principal from the token's claims instead of loading the user row
+    @Value("${auth.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            CustomUserDetailsService userDetailsService,
+            TokenVersionRegistry tokenVersionRegistry,
+            TokenRevocationService tokenRevocationService,
+            MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenRevocationService = tokenRevocationService;
+        this.authenticated = outcome(meterRegistry, "authenticated");
+        this.rejected = outcome(meterRegistry, "rejected");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -30,11 +58,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final Claims claims;
         final String userEmail;
-        
-        // [1] Add this at the start of token processing
-        System.out.println("\n=== JWT Filter Debug ===");
-        System.out.println("Incoming Authorization header: " + authHeader);
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,18 +67,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        
-        // [2] Add this after extracting userEmail
-        System.out.println("Extracted username: " + userEmail);
+        claims = jwtService.extractAllClaims(jwt);
+        userEmail = claims.getSubject();
         
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            
-            // [3] Add this after loading user details
-            System.out.println("User authorities: " + userDetails.getAuthorities());
+            UserDetails userDetails = tokenRevocationService.isRevoked(claims)
+                ? null
+                : resolvePrincipal(claims, userEmail);
             
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                     userDetails,
                     null,
@@ -63,11 +85,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     new WebAuthenticationDetailsSource().buildDetails(request)
                 );
                 SecurityContextHolder.getContext().setAuthentication(authToken);
-                
-                // [4] Add this after authentication is set
-                System.out.println("Authentication set in SecurityContext");
+                authenticated.increment();
+                log.debug("Authenticated {} with authorities {}", userEmail, userDetails.getAuthorities());
+            } else {
+                rejected.increment();
+                log.debug("Rejected token of {}", userEmail);
             }
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        if (!jwtService.hasPrincipalClaims(claims)) {
+            return this.userDetailsService.loadUserByUsername(userEmail);
+        }
+        // A stale version means the user was deleted or changed after the token was issued
+        if (!tokenVersionRegistry.isCurrent(userEmail, jwtService.extractTokenVersion(claims))) {
+            return null;
+        }
+        return statelessPrincipal
+            ? jwtService.buildPrincipal(claims)
+            : this.userDetailsService.loadUserByUsername(userEmail);
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.jwt.requests")
+            .description("Requests carrying a bearer token, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
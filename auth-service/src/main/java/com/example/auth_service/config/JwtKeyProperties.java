@@ -0,0 +1,26 @@
+package com.example.auth_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * JWT signing keys by key id ({@code kid}): HMAC secrets under {@code keys} and
+ * asymmetric key pairs (RS256, ES256, EdDSA, ...) under {@code keyPairs}. New tokens are
+ * signed with {@code activeKeyId}; every listed key is accepted for verification and the
+ * public halves of the key pairs are published as a JWK set.
+ *
+ * <p>Startup fails when no key is configured, unless {@code allowBuiltInKey} opts into
+ * the HMAC secret committed with the source, which the {@code dev} profile does.
+ */
+@ConfigurationProperties(prefix = "auth.jwt.signing")
+public record JwtKeyProperties(String activeKeyId, Map<String, String> keys, Map<String, KeyPair> keyPairs,
+                               boolean allowBuiltInKey) {
+
+    /**
+     * Keys as base64 DER, PKCS#8 for the private and X.509 for the public key; PEM
+     * armor is accepted as well.
+     */
+    public record KeyPair(String algorithm, String privateKey, String publicKey) {
+    }
+}
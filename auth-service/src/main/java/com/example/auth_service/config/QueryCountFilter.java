@@ -0,0 +1,52 @@
+package com.example.auth_service.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request ran, per endpoint, as the
+ * {@code http.server.requests.queries} distribution. Ordered first so the statements of
+ * the security filters (e.g. loading the principal) are included. Counted by
+ * {@link StatementCounter}; work handed to other threads is not included.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain filterChain
+    ) throws ServletException, IOException {
+        StatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = StatementCounter.stop();
+            // The route template, not the raw path, keeps the tag's cardinality bounded
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("http.server.requests.queries")
+                .description("SQL statements run per request, through Hibernate or JDBC")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.auth_service.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Picks the pool per connection: the replica inside a read-only transaction, unless the
+ * current principal has just written, and the primary otherwise. Only correct behind a
+ * {@link LazyConnectionDataSourceProxy}: the transaction manager asks for a connection
+ * before the transaction is marked read-only.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReadYourWritesTracker recentWriters;
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker recentWriters) {
+        this.recentWriters = recentWriters;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !recentWriters.wroteRecently()
+            ? Target.REPLICA
+            : Target.PRIMARY;
+    }
+}
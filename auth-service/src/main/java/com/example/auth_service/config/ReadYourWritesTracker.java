@@ -0,0 +1,51 @@
+package com.example.auth_service.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers the principals that committed a read-write transaction within the window, so
+ * their reads stay on the primary until the replica has replayed their writes. Any
+ * read-write transaction counts, whether or not it changed rows.
+ */
+class ReadYourWritesTracker implements TransactionExecutionListener {
+    private static final int MAXIMUM_SIZE = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+            .expireAfterWrite(window)
+            .maximumSize(MAXIMUM_SIZE)
+            .build();
+    }
+
+    boolean wroteRecently() {
+        String principal = currentPrincipal();
+        return principal != null && recentWriters.getIfPresent(principal) != null;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        String principal = currentPrincipal();
+        if (commitFailure == null && !transaction.isReadOnly() && principal != null) {
+            recentWriters.put(principal, Boolean.TRUE);
+        }
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.auth_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write split, active when {@code auth.datasource.replica.url} is set:
+ * <ul>
+ *   <li>{@code @Transactional(readOnly = true)} code, including Spring Data's inherited
+ *   {@code findById}/{@code findAll}, reads from the replica;</li>
+ *   <li>read-write transactions and statements outside a transaction, such as the
+ *   declared query methods behind authentication, run on the primary;</li>
+ *   <li>for {@code read-your-writes-window} after a principal commits a write, its
+ *   read-only transactions run on the primary as well.</li>
+ * </ul>
+ * The primary and the replica are separate Hikari pools, reported separately in the
+ * {@code hikaricp} metrics.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "auth.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("auth.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties primary, ReplicaDataSourceProperties replica,
+                                              HikariDataSource primaryDataSource) {
+        HikariDataSource dataSource = DataSourceBuilder.create(primary.getClassLoader())
+            .type(HikariDataSource.class)
+            .driverClassName(primary.determineDriverClassName())
+            .url(replica.url())
+            .username(replica.username() != null ? replica.username() : primary.determineUsername())
+            .password(replica.password() != null ? replica.password() : primary.determinePassword())
+            .build();
+        dataSource.setPoolName("ReplicaHikariCP");
+        dataSource.setAutoCommit(primaryDataSource.isAutoCommit());
+        // A write routed here by mistake fails instead of going to a server that accepts it
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    ReadYourWritesTracker readYourWritesTracker(ReplicaDataSourceProperties replica) {
+        return new ReadYourWritesTracker(replica.readYourWritesWindow());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+            new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, readYourWritesTracker));
+        dataSource.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        return dataSource;
+    }
+
+    // Hibernate holds a connection until the session closes, which open-in-view stretches to
+    // the whole request; released after each transaction, every transaction is routed anew
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.auth_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Optional read replica, see {@link ReplicaDataSourceConfig}. Username and password
+ * default to the primary's; pool settings go under {@code auth.datasource.replica.hikari}.
+ */
+@ConfigurationProperties(prefix = "auth.datasource.replica")
+public record ReplicaDataSourceProperties(String url, String username, String password,
+                                          @DefaultValue("5s") Duration readYourWritesWindow) {
+}
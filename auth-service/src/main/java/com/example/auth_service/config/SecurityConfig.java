@@ -2,16 +2,26 @@ package com.example.auth_service.config;
 
 import com.example.auth_service.service.CustomUserDetailsService;
 import com.example.auth_service.service.JwtService;
+import com.example.auth_service.service.OffloadingPasswordEncoder;
+import com.example.auth_service.service.PasswordEncoders;
+import com.example.auth_service.service.TokenRevocationService;
+import com.example.auth_service.service.TokenVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,27 +32,51 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, Environment environment) throws Exception {
+        // Prometheus cannot hold a 15 minute user token, so the scrape is open, but only when the
+        // actuator has its own port (management.server.port) that is kept off the public network
+        Class<?>[] openEndpoints = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT
+            ? new Class<?>[] { HealthEndpoint.class, PrometheusScrapeEndpoint.class }
+            : new Class<?>[] { HealthEndpoint.class };
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // The container forwards sendError() here; securing it would turn e.g. a 429 into a 403
+                .requestMatchers("/error").permitAll()
                 .requestMatchers("/api/auth/login").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/auth/refresh").permitAll()
+                .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                // Probed and scraped without a token; the rest of the actuator is for admins
+                .requestMatchers(EndpointRequest.to(openEndpoints)).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAnyRole("ADMIN", "SUPERADMIN")
                 .requestMatchers("/api/auth/register").hasAuthority("ROLE_SUPERADMIN")
                 .requestMatchers("/api/auth/whoami").authenticated()
                 .requestMatchers("/api/auth/test-protected").authenticated()
                 .requestMatchers("/api/auth/register-superadmin").permitAll()
                 .requestMatchers("/api/auth/admin/create-user").hasAnyRole("ADMIN", "SUPERADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/users").hasAnyRole("ADMIN", "SUPERADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/users/export").hasAnyRole("ADMIN", "SUPERADMIN")
                 .requestMatchers("/api/users/superadmin/**").hasRole("SUPERADMIN")
+                .requestMatchers("/api/users/import/**").hasRole("SUPERADMIN")
                 .requestMatchers("/api/users/admin/**").hasRole("SUPERADMIN")
                 .requestMatchers("/api/users/user/**").hasAnyRole("ADMIN", "SUPERADMIN")
                 .requestMatchers(HttpMethod.POST, "/api/departments").hasRole("SUPERADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/departments/**").hasRole("SUPERADMIN")
                 .requestMatchers("/api/departments/assign").hasAnyRole("ADMIN", "SUPERADMIN")
                 .requestMatchers("/api/departments/unassign").hasAnyRole("ADMIN", "SUPERADMIN")
+                .requestMatchers("/api/departments/assign/bulk", "/api/departments/unassign/bulk").hasAnyRole("ADMIN", "SUPERADMIN")
+                // Who belongs where is directory data, not for every token holder
+                .requestMatchers(HttpMethod.GET, "/api/departments/*/members/**", "/api/departments/members/intersection")
+                    .hasAnyRole("ADMIN", "SUPERADMIN")
                 .requestMatchers("/api/auth/change-password").authenticated()
                 .requestMatchers("/api/auth/admin/change-password").hasRole("SUPERADMIN")
+                .requestMatchers("/api/auth/admin/revoke-sessions/**").hasRole("SUPERADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/changes", "/api/changes/head").hasAnyRole("ADMIN", "SUPERADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -53,7 +87,8 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService, userDetailsService);
+        return new JwtAuthenticationFilter(
+            jwtService, userDetailsService, tokenVersionRegistry, tokenRevocationService, meterRegistry);
     }
 
     @Bean
@@ -62,8 +97,13 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.password.bcrypt.strength:12}") int bcryptStrength,
+            @Value("${auth.password.hashing.threads:0}") int threads,
+            @Value("${auth.password.hashing.queue-capacity:64}") int queueCapacity) {
+        // BCrypt runs on its own CPU-sized pool, never on request threads
+        return new OffloadingPasswordEncoder(
+            PasswordEncoders.delegating(bcryptStrength), threads, queueCapacity, meterRegistry);
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.example.auth_service.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Counts the SQL statements executed on the current thread while a count is open. The
+ * application's {@code dataSource} bean is wrapped, so statements from Hibernate and from
+ * {@code JdbcTemplate} (outbox, membership and revocation queries, bulk SQL) are counted
+ * alike; with a read replica configured the wrapper sits above the routing, so each
+ * statement is counted once whichever pool runs it. A JDBC batch counts as one statement,
+ * matching its single round trip.
+ */
+@Component
+public class StatementCounter implements BeanPostProcessor {
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+        "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    // Ends the count started on this thread and returns it
+    static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    private static void increment() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    // A DelegatingDataSource, so Boot's DataSourceUnwrapper still finds the Hikari pool for its metrics
+    static class CountingDataSource extends DelegatingDataSource {
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(obtainTargetDataSource().getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(obtainTargetDataSource().getConnection(username, password));
+        }
+    }
+
+    private static Connection countingConnection(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> countingStatement(Statement.class, (Statement) result, (Connection) proxy);
+                case "prepareStatement" ->
+                    countingStatement(PreparedStatement.class, (PreparedStatement) result, (Connection) proxy);
+                case "prepareCall" ->
+                    countingStatement(CallableStatement.class, (CallableStatement) result, (Connection) proxy);
+                default -> result;
+            };
+        });
+    }
+
+    private static <S extends Statement> S countingStatement(Class<S> type, S target, Connection connection) {
+        return proxy(type, target, (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                increment();
+            } else if (method.getName().equals("getConnection")) {
+                return connection;
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    // Identity equality, as a pool or Spring's DataSourceUtils expect of a connection they handed out
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[] { type },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "Counting " + target;
+                default -> handler.invoke(proxy, method, args);
+            }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
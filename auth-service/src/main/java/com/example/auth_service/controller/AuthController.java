@@ -3,24 +3,30 @@ package com.example.auth_service.controller;
 import com.example.auth_service.dto.AuthResponse;
 import com.example.auth_service.dto.LoginRequest;
 import com.example.auth_service.dto.PasswordChangeDTO;
+import com.example.auth_service.dto.RefreshTokenRequest;
 import com.example.auth_service.dto.SignupRequest;
+import com.example.auth_service.event.UserChangedEvent;
 import com.example.auth_service.model.Department;
 import com.example.auth_service.model.User;
 import com.example.auth_service.repository.RoleRepository;
 import com.example.auth_service.repository.UserRepository;
 import com.example.auth_service.service.AuthService;
+import com.example.auth_service.service.TokenRevocationService;
 import com.example.auth_service.util.RoleUtils;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -32,10 +38,44 @@ public class AuthController {
     private final UserRepository userRepository; 
     private final RoleRepository roleRepository; 
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
-        return ResponseEntity.ok(authService.login(request));
+    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(authService.login(request, httpRequest.getRemoteAddr()));
+    }
+
+    // Trades a refresh token for a new access token and the next refresh token
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestBody(required = false) RefreshTokenRequest request,
+            @RequestHeader("Authorization") String authorization) {
+        authService.logout(authorization.substring("Bearer ".length()), request);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Signs the current user out on every device
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal UserDetails currentUser) {
+        Long userId = userRepository.findIdByEmail(currentUser.getUsername())
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        tokenRevocationService.revokeAll(userId, currentUser.getUsername());
+        return ResponseEntity.noContent().build();
+    }
+
+    // E.g. for a deactivated or compromised account
+    @PostMapping("/admin/revoke-sessions/{userId}")
+    public ResponseEntity<Void> revokeSessions(@PathVariable Long userId) {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        tokenRevocationService.revokeAll(user.getId(), user.getEmail());
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/register")
@@ -95,7 +135,10 @@ public class AuthController {
 
 
 
+    // Transactional so the UserChangedEvent listeners run after commit on this request's
+    // connection instead of waiting for a second one from the pool
     @PostMapping("/change-password")
+    @Transactional
     public ResponseEntity<String> changeOwnPassword(
             @RequestBody PasswordChangeDTO passwordChange,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -112,11 +155,14 @@ public class AuthController {
         
         user.setPassword(passwordEncoder.encode(passwordChange.getNewPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
         
         return ResponseEntity.ok("Password changed successfully");
     }
 
+    // Transactional so the read of the token version is on the primary it is written back to
     @PostMapping("/admin/change-password")
+    @Transactional
     public ResponseEntity<String> changeUserPassword(
             @RequestBody PasswordChangeDTO passwordChange,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -129,7 +175,10 @@ public class AuthController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         
         user.setPassword(passwordEncoder.encode(passwordChange.getNewPassword()));
+        // A reset by the SuperAdmin also ends the user's existing sessions
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
         
         return ResponseEntity.ok("User password changed successfully");
     }
@@ -0,0 +1,27 @@
+package com.example.auth_service.controller;
+
+import com.example.auth_service.dto.AuthorizationCheckRequest;
+import com.example.auth_service.dto.AuthorizationCheckResultDTO;
+import com.example.auth_service.service.AuthorizationService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/authz")
+@RequiredArgsConstructor
+public class AuthorizationController {
+    private final AuthorizationService authorizationService;
+
+    // Many (action, departmentId) checks for the bearer of the token in one call
+    @PostMapping("/check")
+    public ResponseEntity<AuthorizationCheckResultDTO> check(
+            @RequestBody AuthorizationCheckRequest request,
+            @AuthenticationPrincipal UserDetails currentUser) {
+        return ResponseEntity.ok(authorizationService.check(currentUser, request));
+    }
+}
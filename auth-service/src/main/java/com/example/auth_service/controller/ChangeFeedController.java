@@ -0,0 +1,41 @@
+package com.example.auth_service.controller;
+
+import com.example.auth_service.dto.ChangeFeedDTO;
+import com.example.auth_service.service.ChangeFeed;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// Changes to users, departments and memberships for services that keep a local copy
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final ChangeFeed changeFeed;
+
+    @GetMapping
+    public ResponseEntity<ChangeFeedDTO> changes(
+            @RequestParam long since,
+            @RequestParam(defaultValue = "500") int limit) {
+        if (since < 0 || limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "since must not be negative and limit must be between 1 and " + MAX_LIMIT);
+        }
+        return ResponseEntity.ok(changeFeed.read(since, limit));
+    }
+
+    // The cursor to start from; take it before a full reload so no change falls in between
+    @GetMapping("/head")
+    public ResponseEntity<ChangeFeedDTO> head() {
+        long head = changeFeed.head();
+        return ResponseEntity.ok(new ChangeFeedDTO(List.of(), head));
+    }
+}
@@ -1,31 +1,58 @@
 package com.example.auth_service.controller;
 
+import com.example.auth_service.dto.BulkAssignmentResultDTO;
+import com.example.auth_service.dto.BulkDepartmentAssignmentDTO;
 import com.example.auth_service.dto.DepartmentAssignmentDTO;
+import com.example.auth_service.dto.DepartmentMembersDTO;
+import com.example.auth_service.dto.MembershipDTO;
+import com.example.auth_service.dto.UserResponseDTO;
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.model.ChangeEvent;
 import com.example.auth_service.model.Department;
 import com.example.auth_service.model.User;
 import com.example.auth_service.repository.DepartmentRepository;
 import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.ChangeOutbox;
+import com.example.auth_service.service.ChangeOutbox.Change;
+import com.example.auth_service.service.DepartmentAssignmentService;
+import com.example.auth_service.service.DepartmentMembershipIndex;
+import com.example.auth_service.service.ReferenceDataCache;
 import com.example.auth_service.util.RoleUtils;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.BitSet;
+import java.util.List;
 
+
+@Slf4j
 @RestController
 @RequestMapping("/api/departments")
 @RequiredArgsConstructor
 public class DepartmentController {
     private final DepartmentRepository departmentRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DepartmentAssignmentService departmentAssignmentService;
+    private final ReferenceDataCache referenceData;
+    private final DepartmentMembershipIndex membershipIndex;
+    private final ChangeOutbox changeOutbox;
 
     // Create department (SuperAdmin only)
     @PostMapping
+    @Transactional
     public ResponseEntity<Department> createDepartment(
             @RequestBody String departmentName,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -34,10 +61,17 @@ public class DepartmentController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN);
         }
         
+        String name = departmentName.trim();
+        if (referenceData.departmentExists(name)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Department already exists");
+        }
+
         // Create department
         Department department = new Department();
-        department.setName(departmentName.trim());
+        department.setName(name);
         Department savedDepartment = departmentRepository.save(department);
+        afterCommit(() -> referenceData.departmentSaved(savedDepartment));
+        changeOutbox.record(Change.department(ChangeEvent.Type.DEPARTMENT_CREATED, savedDepartment));
         
         // Assign to SuperAdmin
         User superAdmin = userRepository.findByEmail(currentUser.getUsername())
@@ -45,12 +79,16 @@ public class DepartmentController {
         
         superAdmin.getDepartments().add(savedDepartment);
         userRepository.save(superAdmin);
+        changeOutbox.record(Change.membership(
+            ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, superAdmin.getId(), savedDepartment.getId()));
+        eventPublisher.publishEvent(new UserChangedEvent(superAdmin.getId(), superAdmin.getEmail()));
         
         return ResponseEntity.ok(savedDepartment);
     }
 
     // Delete department (SuperAdmin only)
     @DeleteMapping("/{departmentId}")
+    @Transactional
     public ResponseEntity<Void> deleteDepartment(
             @PathVariable Long departmentId,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -59,24 +97,29 @@ public class DepartmentController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN);
         }
         
-        departmentRepository.deleteById(departmentId);
+        departmentRepository.findById(departmentId).ifPresent(department -> {
+            changeOutbox.record(Change.department(ChangeEvent.Type.DEPARTMENT_DELETED, department));
+            departmentRepository.delete(department);
+        });
+        afterCommit(() -> {
+            referenceData.departmentDeleted(departmentId);
+            membershipIndex.departmentDeleted(departmentId);
+        });
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/assign")
-    public ResponseEntity<User> assignDepartment(
+    @Transactional
+    public ResponseEntity<UserResponseDTO> assignDepartment(
             @RequestBody DepartmentAssignmentDTO assignment,
             @AuthenticationPrincipal UserDetails currentUser) {
         
-        User user = userRepository.findById(assignment.getUserId())
+        User user = userRepository.findWithDepartmentsById(assignment.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         
-        Department department = departmentRepository.findById(assignment.getDepartmentId())
+        Department department = referenceData.department(assignment.getDepartmentId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         
-        // Debug: Print user's role
-        System.out.println("Target user role: " + user.getRole().getName());
-        
         // Check permissions
         boolean isSuperAdmin = currentUser.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_SUPERADMIN"));
@@ -87,30 +130,39 @@ public class DepartmentController {
         boolean targetIsUser = user.getRole().getName().toString().trim().equalsIgnoreCase("USER");
 
         if (!isSuperAdmin && !(isAdmin && targetIsUser)) {
-                        System.out.println(isSuperAdmin);
-                        System.out.println(isAdmin);
-                        System.out.println(targetIsUser);
-                        System.out.println(user.getRole().getName());
-
+            log.debug("Denied assignment by {} to a user with role {}", currentUser.getUsername(), user.getRole().getName());
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
                 "Permission denied. Admins can only assign to regular users.");
             
         }
         
+        // The join table is unique on (user_id, department_id); assigning twice is a no-op
+        boolean alreadyAssigned = user.getDepartments().stream()
+                .anyMatch(assigned -> assigned.getId().equals(department.getId()));
+        if (alreadyAssigned) {
+            return ResponseEntity.ok(UserResponseDTO.from(user));
+        }
+
+        // Written by dirty checking on commit; save() would merge and reload the cached department
         user.getDepartments().add(department);
-        return ResponseEntity.ok(userRepository.save(user));
+        changeOutbox.record(Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, user.getId(), department.getId()));
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getEmail()));
+        return ResponseEntity.ok(UserResponseDTO.from(user));
     }
 
-    // Remove department from user
+    // Remove department from user. Transactional so the outbox event commits with the change
+    // and the UserChangedEvent listeners run after commit on this request's connection
+    // instead of waiting for a second one from the pool (see UnassignConnectionPoolTests)
     @PostMapping("/unassign")
-    public ResponseEntity<User> unassignDepartment(
+    @Transactional
+    public ResponseEntity<UserResponseDTO> unassignDepartment(
             @RequestBody DepartmentAssignmentDTO assignment,
             @AuthenticationPrincipal UserDetails currentUser) {
         
-        User user = userRepository.findById(assignment.getUserId())
+        User user = userRepository.findWithDepartmentsById(assignment.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         
-        Department department = departmentRepository.findById(assignment.getDepartmentId())
+        Department department = referenceData.department(assignment.getDepartmentId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         
         // Check permissions
@@ -122,7 +174,69 @@ public class DepartmentController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN);
         }
         
-        user.getDepartments().remove(department);
-        return ResponseEntity.ok(userRepository.save(user));
+        // By id: cached departments are copies, not the instances in the user's collection
+        if (user.getDepartments().removeIf(assigned -> assigned.getId().equals(department.getId()))) {
+            changeOutbox.record(Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_REMOVED, user.getId(), department.getId()));
+        }
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getEmail()));
+        return ResponseEntity.ok(UserResponseDTO.from(savedUser));
+    }
+
+    // Membership queries, answered from the in-memory index
+    @GetMapping("/{departmentId}/members/{userId}")
+    public ResponseEntity<MembershipDTO> isMember(@PathVariable Long departmentId, @PathVariable Long userId) {
+        return ResponseEntity.ok(new MembershipDTO(departmentId, userId, membershipIndex.isMember(userId, departmentId)));
+    }
+
+    @GetMapping("/{departmentId}/members")
+    public ResponseEntity<DepartmentMembersDTO> members(@PathVariable Long departmentId) {
+        long[] userIds = membershipIndex.members(departmentId);
+        return ResponseEntity.ok(new DepartmentMembersDTO(List.of(departmentId), userIds.length, userIds));
+    }
+
+    @GetMapping("/{departmentId}/members/count")
+    public ResponseEntity<DepartmentMembersDTO> memberCount(@PathVariable Long departmentId) {
+        return ResponseEntity.ok(new DepartmentMembersDTO(List.of(departmentId), membershipIndex.count(departmentId), null));
+    }
+
+    // Users that belong to all of the given departments; countOnly skips the id list
+    @GetMapping("/members/intersection")
+    public ResponseEntity<DepartmentMembersDTO> commonMembers(
+            @RequestParam List<Long> departmentIds,
+            @RequestParam(defaultValue = "false") boolean countOnly) {
+        if (departmentIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "departmentIds is required");
+        }
+        BitSet common = membershipIndex.intersection(departmentIds);
+        long[] userIds = countOnly ? null : common.stream().asLongStream().toArray();
+        return ResponseEntity.ok(new DepartmentMembersDTO(departmentIds, common.cardinality(), userIds));
+    }
+
+    // Assign every listed user to every listed department in one statement
+    @PostMapping("/assign/bulk")
+    public ResponseEntity<BulkAssignmentResultDTO> assignDepartments(
+            @RequestBody BulkDepartmentAssignmentDTO assignment,
+            @AuthenticationPrincipal UserDetails currentUser) {
+        return ResponseEntity.ok(departmentAssignmentService.assign(assignment, currentUser));
+    }
+
+    // Remove every listed department from every listed user in one statement
+    @PostMapping("/unassign/bulk")
+    public ResponseEntity<BulkAssignmentResultDTO> unassignDepartments(
+            @RequestBody BulkDepartmentAssignmentDTO assignment,
+            @AuthenticationPrincipal UserDetails currentUser) {
+        return ResponseEntity.ok(departmentAssignmentService.unassign(assignment, currentUser));
+    }
+
+    // The caches follow the database only once the change is committed, so a rollback
+    // cannot leave a phantom or missing department behind
+    private static void afterCommit(Runnable cacheUpdate) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cacheUpdate.run();
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.example.auth_service.controller;
+
+import com.example.auth_service.service.JwtKeySource;
+
+import io.jsonwebtoken.security.PublicJwk;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Public half of every asymmetric signing key as a JWK set (RFC 7517), so other services
+ * verify our tokens locally. Clients may cache it for {@code auth.jwt.jwks.max-age}; a key
+ * must therefore be published at least that long before it is activated.
+ */
+@RestController
+public class JwksController {
+    private final JwtKeySource keySource;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeySource keySource, @Value("${auth.jwt.jwks.max-age:5m}") Duration maxAge) {
+        this.keySource = keySource;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<PublicJwk<?>>>> jwks(WebRequest request) {
+        List<PublicJwk<?>> keys = keySource.publicKeys().stream()
+            .sorted(Comparator.comparing(PublicJwk::getId))
+            .toList();
+        // Key ids are never reused, so they identify the set
+        String etag = "\"" + Integer.toHexString(keys.stream().map(PublicJwk::getId).toList().hashCode()) + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(304).cacheControl(cacheControl).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl)
+            .eTag(etag)
+            .body(Map.of("keys", keys));
+    }
+}
@@ -2,27 +2,53 @@ package com.example.auth_service.controller;
 
 import com.example.auth_service.dto.DepartmentAssignmentDTO;
 import com.example.auth_service.dto.UpdateUserDTO;
+import com.example.auth_service.dto.UserImportStatusDTO;
+import com.example.auth_service.dto.UserPageDTO;
+import com.example.auth_service.dto.UserResponseDTO;
+import com.example.auth_service.dto.UserSummaryDTO;
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.model.ChangeEvent;
 import com.example.auth_service.model.Role;
 import com.example.auth_service.model.User;
 import com.example.auth_service.repository.DepartmentRepository;
 import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.ChangeOutbox;
+import com.example.auth_service.service.ChangeOutbox.Change;
+import com.example.auth_service.service.UserExportService;
+import com.example.auth_service.service.UserImportService;
 import com.example.auth_service.util.RoleUtils;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final ChangeOutbox changeOutbox;
     
     private User applyUpdates(User user, UpdateUserDTO updates) {
         updates.getName().ifPresent(user::setName);
@@ -33,9 +59,60 @@ public class UserController {
         return user;
     }
 
+    private User saveUpdates(User user, UpdateUserDTO updates) {
+        String previousEmail = user.getEmail();
+        User savedUser = userRepository.save(applyUpdates(user, updates));
+        changeOutbox.record(Change.user(ChangeEvent.Type.USER_UPDATED, savedUser));
+        // Caches and tokens are keyed by email, so the old address must stop resolving
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), previousEmail));
+        if (!previousEmail.equals(savedUser.getEmail())) {
+            eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getEmail()));
+        }
+        return savedUser;
+    }
+
+    // List users (by SuperAdmin or Admin), paginated by seeking past the previous page's last id
+    @GetMapping
+    public ResponseEntity<UserPageDTO> listUsers(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long departmentId,
+            @AuthenticationPrincipal UserDetails currentUser) {
+
+        if (!RoleUtils.isSuperAdmin(currentUser) && !RoleUtils.isAdmin(currentUser)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                "Only SUPERADMIN or ADMIN can list users");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Role.RoleType roleType = null;
+        if (role != null) {
+            try {
+                roleType = Role.RoleType.valueOf(role.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown role: " + role);
+            }
+        }
+
+        // Fetch one extra row to know whether another page follows
+        List<UserSummaryDTO> rows = userRepository.findSummariesAfter(
+            after, roleType, status, departmentId, PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<UserSummaryDTO> items = hasMore ? rows.subList(0, size) : rows;
+        Long nextCursor = hasMore ? items.get(items.size() - 1).id() : null;
+
+        return ResponseEntity.ok(new UserPageDTO(items, nextCursor));
+    }
+
     // Update SuperAdmin (only by SuperAdmin)
     @PutMapping("/superadmin/{userId}")
-    public ResponseEntity<User> updateSuperAdmin(
+    @Transactional
+    public ResponseEntity<UserResponseDTO> updateSuperAdmin(
             @PathVariable Long userId,
             @RequestBody UpdateUserDTO userUpdateDTO,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -45,7 +122,7 @@ public class UserController {
                 "Only SUPERADMIN can update other SUPERADMINs");
         }
 
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithDepartmentsById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
         // Verify the target user is a SUPERADMIN
@@ -54,12 +131,13 @@ public class UserController {
                 "This endpoint is only for SUPERADMIN updates");
         }
 
-        return ResponseEntity.ok(userRepository.save(applyUpdates(user, userUpdateDTO)));
+        return ResponseEntity.ok(UserResponseDTO.from(saveUpdates(user, userUpdateDTO)));
     }
 
     // Update Admin (only by SuperAdmin)
     @PutMapping("/admin/{userId}")
-    public ResponseEntity<User> updateAdmin(
+    @Transactional
+    public ResponseEntity<UserResponseDTO> updateAdmin(
             @PathVariable Long userId,
             @RequestBody UpdateUserDTO userUpdateDTO,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -69,7 +147,7 @@ public class UserController {
                 "Only SUPERADMIN can update ADMINs");
         }
 
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithDepartmentsById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
         // Verify the target user is an ADMIN
@@ -78,12 +156,13 @@ public class UserController {
                 "This endpoint is only for ADMIN updates");
         }
 
-        return ResponseEntity.ok(userRepository.save(applyUpdates(user, userUpdateDTO)));
+        return ResponseEntity.ok(UserResponseDTO.from(saveUpdates(user, userUpdateDTO)));
     }
 
     // Update User (by SuperAdmin or Admin)
     @PutMapping("/user/{userId}")
-    public ResponseEntity<User> updateUser(
+    @Transactional
+    public ResponseEntity<UserResponseDTO> updateUser(
             @PathVariable Long userId,
             @RequestBody UpdateUserDTO userUpdateDTO,
             @AuthenticationPrincipal UserDetails currentUser) {
@@ -93,7 +172,7 @@ public class UserController {
                 "Only SUPERADMIN or ADMIN can update USERs");
         }
 
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithDepartmentsById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
         // Verify the target user is a regular USER
@@ -102,7 +181,7 @@ public class UserController {
                 "This endpoint is only for USER updates");
         }
 
-        return ResponseEntity.ok(userRepository.save(applyUpdates(user, userUpdateDTO)));
+        return ResponseEntity.ok(UserResponseDTO.from(saveUpdates(user, userUpdateDTO)));
     }
 
     @DeleteMapping("/{userId}")
@@ -132,9 +211,48 @@ public class UserController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Insufficient permissions");
         }
         
+        changeOutbox.record(Change.user(ChangeEvent.Type.USER_DELETED, targetUser));
         userRepository.delete(targetUser);
+        eventPublisher.publishEvent(new UserChangedEvent(targetUser.getId(), targetUser.getEmail()));
         return ResponseEntity.noContent().build();
     }
 
+    // Full export of users with role and departments (by SuperAdmin or Admin), streamed as it is read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "csv") String format) {
+        UserExportService.Format exportFormat = switch (format.toLowerCase()) {
+            case "csv" -> UserExportService.Format.CSV;
+            case "ndjson" -> UserExportService.Format.NDJSON;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+        };
+        MediaType contentType = exportFormat == UserExportService.Format.CSV
+            ? MediaType.valueOf("text/csv")
+            : MediaType.valueOf("application/x-ndjson");
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + format.toLowerCase() + "\"")
+            .body(out -> userExportService.export(exportFormat, out));
+    }
 
-}
\ No newline at end of file
+    // Bulk import (SuperAdmin only): CSV with a header row, or one JSON object per line.
+    // Runs in the background; poll the returned Location for progress and row errors.
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<UserImportStatusDTO> importUsers(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+        UserImportService.Format format = contentType.isCompatibleWith(MediaType.valueOf("text/csv"))
+            ? UserImportService.Format.CSV
+            : UserImportService.Format.NDJSON;
+        UserImportStatusDTO status = userImportService.start(body, format);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/users/import/" + status.id()))
+            .body(status);
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<UserImportStatusDTO> importStatus(@PathVariable String jobId) {
+        return userImportService.status(jobId)
+            .map(ResponseEntity::ok)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found"));
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.auth_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
-
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class AuthResponse {
     private String token;
+    // Seconds until the access token expires
+    private Long expiresIn;
+    // Only issued to the user who authenticated, never for accounts created by an admin
+    private String refreshToken;
     private String email;
     private String role;
 }
@@ -0,0 +1,16 @@
+package com.example.auth_service.dto;
+
+import com.example.auth_service.model.Role;
+import com.example.auth_service.service.AccessDecisionTable.Action;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AuthorizationCheckRequest {
+    private List<Check> checks;
+
+    // targetRole only matters for ASSIGN_MEMBERS: the role of the user to be assigned
+    public record Check(Action action, Long departmentId, Role.RoleType targetRole) {
+    }
+}
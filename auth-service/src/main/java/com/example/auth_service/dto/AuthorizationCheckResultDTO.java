@@ -0,0 +1,9 @@
+package com.example.auth_service.dto;
+
+/**
+ * Answers to a batch of checks. Bit {@code i} of {@code decisions} is set when check
+ * {@code i} is allowed; the bits are base64 of {@link java.util.BitSet#toByteArray()},
+ * i.e. little-endian, and trailing denied checks are omitted.
+ */
+public record AuthorizationCheckResultDTO(String principal, int checked, int allowed, String decisions) {
+}
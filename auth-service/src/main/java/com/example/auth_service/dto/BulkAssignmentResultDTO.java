@@ -0,0 +1,33 @@
+package com.example.auth_service.dto;
+
+import java.util.List;
+
+public record BulkAssignmentResultDTO(int changed, int unchanged, int rejected, List<Row> results) {
+
+    public record Row(Long userId, Long departmentId, Status status) {
+    }
+
+    public enum Status {
+        ASSIGNED,
+        ALREADY_ASSIGNED,
+        UNASSIGNED,
+        NOT_ASSIGNED,
+        USER_NOT_FOUND,
+        DEPARTMENT_NOT_FOUND,
+        FORBIDDEN
+    }
+
+    public static BulkAssignmentResultDTO of(List<Row> results) {
+        int changed = 0;
+        int unchanged = 0;
+        int rejected = 0;
+        for (Row row : results) {
+            switch (row.status()) {
+                case ASSIGNED, UNASSIGNED -> changed++;
+                case ALREADY_ASSIGNED, NOT_ASSIGNED -> unchanged++;
+                default -> rejected++;
+            }
+        }
+        return new BulkAssignmentResultDTO(changed, unchanged, rejected, results);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.auth_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Every user in userIds is assigned to (or removed from) every department in departmentIds
+@Data
+public class BulkDepartmentAssignmentDTO {
+    private List<Long> userIds;
+    private List<Long> departmentIds;
+}
@@ -0,0 +1,16 @@
+package com.example.auth_service.dto;
+
+import com.example.auth_service.model.ChangeEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+// One change feed entry; payload is the JSON stored by ChangeOutbox, passed through as is
+public record ChangeEventDTO(
+    long position,
+    ChangeEvent.Type type,
+    long aggregateId,
+    Instant occurredAt,
+    @JsonRawValue String payload
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.auth_service.dto;
+
+import java.util.List;
+
+/**
+ * Changes after a cursor, oldest first. Pass {@code nextCursor} as {@code since} to
+ * continue; when there was nothing new it is the cursor that was passed in.
+ */
+public record ChangeFeedDTO(List<ChangeEventDTO> items, long nextCursor) {
+}
@@ -0,0 +1,13 @@
+package com.example.auth_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Users found in all of {@code departmentIds}; {@code userIds} is left out of count-only
+ * answers.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DepartmentMembersDTO(List<Long> departmentIds, int count, long[] userIds) {
+}
@@ -0,0 +1,9 @@
+package com.example.auth_service.dto;
+
+import com.example.auth_service.model.Department;
+
+public record DepartmentSummaryDTO(Long id, String name) {
+    public static DepartmentSummaryDTO from(Department department) {
+        return new DepartmentSummaryDTO(department.getId(), department.getName());
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.auth_service.dto;
+
+public record MembershipDTO(Long departmentId, Long userId, boolean member) {
+}
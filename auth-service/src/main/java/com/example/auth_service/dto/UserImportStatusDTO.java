@@ -0,0 +1,32 @@
+package com.example.auth_service.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a bulk user import. Counters are updated after every batch; {@code errors}
+ * holds at most the configured number of rows, {@code failed} counts all of them.
+ */
+public record UserImportStatusDTO(
+        String id,
+        State state,
+        long processed,
+        long imported,
+        long duplicates,
+        long failed,
+        List<RowError> errors,
+        Instant startedAt,
+        Instant finishedAt,
+        String failure) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    // row is the 1-based record number in the uploaded file, not counting a CSV header
+    public record RowError(long row, String email, String message) {
+    }
+}
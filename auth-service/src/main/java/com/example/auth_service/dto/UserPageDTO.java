@@ -0,0 +1,10 @@
+package com.example.auth_service.dto;
+
+import java.util.List;
+
+/**
+ * One page of the user list. Pass {@code nextCursor} as {@code after} to fetch the next
+ * page; it is {@code null} on the last page.
+ */
+public record UserPageDTO(List<UserSummaryDTO> items, Long nextCursor) {
+}
@@ -0,0 +1,39 @@
+package com.example.auth_service.dto;
+
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * What the user endpoints return instead of the User entity: no password hash and no
+ * documentsLoaded. {@code departments} must already be fetched when mapping.
+ */
+public record UserResponseDTO(
+    Long id,
+    String name,
+    String email,
+    String position,
+    Role.RoleType role,
+    String status,
+    String address,
+    String phone,
+    LocalDateTime lastLogin,
+    List<DepartmentSummaryDTO> departments
+) {
+    public static UserResponseDTO from(User user) {
+        return new UserResponseDTO(
+            user.getId(),
+            user.getName(),
+            user.getEmail(),
+            user.getPosition(),
+            user.getRole().getName(),
+            user.getStatus(),
+            user.getAddress(),
+            user.getPhone(),
+            user.getLastLogin(),
+            user.getDepartments().stream().map(DepartmentSummaryDTO::from).toList()
+        );
+    }
+}
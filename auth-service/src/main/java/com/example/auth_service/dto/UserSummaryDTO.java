@@ -0,0 +1,17 @@
+package com.example.auth_service.dto;
+
+import com.example.auth_service.model.Role;
+
+import java.time.LocalDateTime;
+
+// Columns shown in the user list; selected directly, without loading User entities
+public record UserSummaryDTO(
+    Long id,
+    String name,
+    String email,
+    String position,
+    Role.RoleType role,
+    String status,
+    LocalDateTime lastLogin
+) {
+}
@@ -0,0 +1,8 @@
+package com.example.auth_service.event;
+
+/**
+ * Published whenever a user row is modified or removed. {@code email} is the address
+ * the user was known by before the change, which is what caches are keyed on.
+ */
+public record UserChangedEvent(Long userId, String email) {
+}
@@ -0,0 +1,55 @@
+package com.example.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change feed. Inserted by {@code ChangeOutbox} in the transaction of
+ * the change itself and given its {@code position} in the feed later by
+ * {@code ChangeFeed}; both use JDBC, so the entity only defines the table.
+ */
+@Entity
+@Table(name = "change_events", indexes = {
+    // Also finds the rows still waiting for a position: btree indexes cover IS NULL
+    @Index(name = "uk_change_events_position", columnList = "position", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private Type type;
+
+    // The user for USER_* and membership events, the department for DEPARTMENT_* events
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    private Long position;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    public enum Type {
+        USER_CREATED,
+        USER_UPDATED,
+        // Deleting a user or a department also ends its memberships, without separate events
+        USER_DELETED,
+        DEPARTMENT_CREATED,
+        DEPARTMENT_DELETED,
+        DEPARTMENT_MEMBER_ADDED,
+        DEPARTMENT_MEMBER_REMOVED
+    }
+}
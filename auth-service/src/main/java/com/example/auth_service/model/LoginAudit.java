@@ -0,0 +1,37 @@
+package com.example.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * One login attempt. Written in batches by {@code LoginAuditWriter}, never through JPA,
+ * so the entity only defines the table.
+ */
+@Entity
+@Table(name = "login_audit", indexes = {
+    @Index(name = "idx_login_audit_email_occurred_at", columnList = "email, occurred_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginAudit {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // As typed by the client, so attempts against unknown accounts are kept too; cut to
+    // the column size before it is queued
+    @Column(nullable = false, length = 255)
+    private String email;
+
+    @Column(nullable = false)
+    private boolean success;
+
+    @Column(name = "client_ip", length = 45)
+    private String clientIp;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+}
@@ -0,0 +1,59 @@
+package com.example.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * One refresh token of a login session. Only the SHA-256 of the token is stored. Every
+ * refresh consumes the token and issues the next one in the same family; presenting a
+ * consumed token again means it was copied, and the whole family is revoked.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "uk_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+    @Index(name = "idx_refresh_tokens_family_id", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
+    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Hex SHA-256 of the token handed to the client
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    // Shared by all tokens rotated from the same login
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private User user;
+
+    // users.token_version at issue time; a password reset ends the session
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Set when the token is exchanged for its successor
+    @Column(name = "used_at")
+    private Instant usedAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean revoked = false;
+}
@@ -0,0 +1,32 @@
+package com.example.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An access token revoked before its expiry, e.g. by logout. Rows are only needed until
+ * the token would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "uk_revoked_tokens_jti", columnList = "jti", unique = true),
+    @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    // Increasing, so other instances can pick up new rows by seeking past the last id seen
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -2,12 +2,17 @@ package com.example.auth_service.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    // Seek indexes for the filtered user listing
+    @Index(name = "idx_users_role_id_id", columnList = "role_id, id"),
+    @Index(name = "idx_users_status_id", columnList = "status, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -37,7 +42,10 @@ public class User {
     @JoinTable(
         name = "user_departments",
         joinColumns = @JoinColumn(name = "user_id"),
-        inverseJoinColumns = @JoinColumn(name = "department_id")
+        inverseJoinColumns = @JoinColumn(name = "department_id"),
+        indexes = @Index(name = "idx_user_departments_department_user", columnList = "department_id, user_id"),
+        uniqueConstraints = @UniqueConstraint(
+            name = "uk_user_departments_user_department", columnNames = {"user_id", "department_id"})
     )
     private List<Department> departments = new ArrayList<>();
 
@@ -50,6 +58,15 @@ public class User {
 
     private LocalDateTime lastLogin;
 
+    // Bumped whenever previously issued tokens must stop working
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0 not null")
+    @Builder.Default
+    private int tokenVersion = 0;
+
+    // Tokens issued at or before this instant are rejected ("sign out everywhere")
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
+
     @ElementCollection
     @Builder.Default
     private List<String> documentsLoaded = new ArrayList<>();
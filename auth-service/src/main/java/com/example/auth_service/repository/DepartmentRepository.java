@@ -2,20 +2,29 @@ package com.example.auth_service.repository;
 
 import com.example.auth_service.model.Department;
 
+import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
     boolean existsByName(String name);
     boolean existsByNameAndIdNot(String name, Long id); // New method for update validation
     Department findByName(String name);
-    
-    @EntityGraph(attributePaths = {"users"}) // Efficiently load users with department
 
     @Query("SELECT d FROM Department d LEFT JOIN FETCH d.users WHERE d.id = :id")
     Optional<Department> findWithUsersById(@Param("id") Long id);
+
+    // Read-write so they stay on the primary: they fill ReferenceDataCache, where a lagging
+    // replica's rows would overwrite newer ones
+    @Override
+    @Transactional
+    List<Department> findAll();
+
+    @Override
+    @Transactional
+    Optional<Department> findById(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.auth_service.repository;
+
+import com.example.auth_service.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    // Token, user and role in one indexed lookup
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user u JOIN FETCH u.role WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Compare-and-set: only one of two concurrent refreshes with the same token succeeds
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.usedAt = :now WHERE t.id = :id AND t.usedAt IS NULL AND t.revoked = false")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN (" +
+                   "SELECT id FROM refresh_tokens WHERE expires_at < :cutoff LIMIT :limit)",
+           nativeQuery = true)
+    int deleteExpired(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
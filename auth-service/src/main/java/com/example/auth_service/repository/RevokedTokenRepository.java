@@ -0,0 +1,19 @@
+package com.example.auth_service.repository;
+
+import com.example.auth_service.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    boolean existsByJti(String jti);
+
+    @Modifying
+    @Query(value = "DELETE FROM revoked_tokens WHERE id IN (" +
+                   "SELECT id FROM revoked_tokens WHERE expires_at < :cutoff LIMIT :limit)",
+           nativeQuery = true)
+    int deleteExpired(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
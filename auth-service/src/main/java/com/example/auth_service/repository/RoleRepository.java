@@ -2,11 +2,13 @@ package com.example.auth_service.repository;
 
 import com.example.auth_service.model.Role;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
     // For enum-based search
@@ -17,4 +19,9 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
 
     @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE u.role.name = :roleType")
     boolean existsByRoleName(@Param("roleType") Role.RoleType roleType);
+
+    // Read-write so it stays on the primary, see DepartmentRepository.findAll
+    @Override
+    @Transactional
+    List<Role> findAll();
 }
\ No newline at end of file
@@ -1,17 +1,70 @@
 package com.example.auth_service.repository;
 
+import com.example.auth_service.dto.UserSummaryDTO;
 import com.example.auth_service.model.Role;
 import com.example.auth_service.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // Role and departments in one query, for endpoints that return UserResponseDTO
+    @EntityGraph(attributePaths = {"role", "departments"})
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findWithDepartmentsById(@Param("id") Long id);
     boolean existsByEmail(String email);
     @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END " +
            "FROM User u WHERE u.role.name = :roleType")
     boolean existsByRoleName(@Param("roleType") Role.RoleType roleType);
+
+    // Keyset pagination: seeks past the last id of the previous page instead of using OFFSET
+    @Query("SELECT new com.example.auth_service.dto.UserSummaryDTO(" +
+           "u.id, u.name, u.email, u.position, u.role.name, u.status, u.lastLogin) " +
+           "FROM User u " +
+           "WHERE u.id > :afterId " +
+           "AND (:role IS NULL OR u.role.name = :role) " +
+           "AND (:status IS NULL OR u.status = :status) " +
+           "AND (:departmentId IS NULL OR EXISTS (" +
+           "    SELECT 1 FROM u.departments d WHERE d.id = :departmentId)) " +
+           "ORDER BY u.id")
+    @Transactional(readOnly = true) // May be served by the read replica
+    List<UserSummaryDTO> findSummariesAfter(
+        @Param("afterId") long afterId,
+        @Param("role") Role.RoleType role,
+        @Param("status") String status,
+        @Param("departmentId") Long departmentId,
+        Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    @Query("SELECT u.email AS email, u.tokenVersion AS tokenVersion, u.tokensValidAfter AS tokensValidAfter " +
+           "FROM User u WHERE u.email = :email")
+    Optional<TokenVersionView> findTokenStateByEmail(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokensValidAfter = :validAfter WHERE u.id = :id")
+    int updateTokensValidAfter(@Param("id") Long id, @Param("validAfter") Instant validAfter);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+
+    interface TokenVersionView {
+        String getEmail();
+        int getTokenVersion();
+        Instant getTokensValidAfter();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.Role;
+
+/**
+ * Department-scoped permission rules, compiled into a flat boolean table indexed by
+ * role x action x membership x target role. A decision is a single array read.
+ *
+ * <p>{@link Action#MANAGE_DEPARTMENT} and {@link Action#ASSIGN_MEMBERS} follow what this
+ * service's endpoints enforce: only the SuperAdmin creates and deletes departments, and
+ * department assignments are open to the SuperAdmin for anyone and to Admins for regular
+ * users only, in any department. An assignment check without a target role is therefore
+ * allowed for the SuperAdmin alone.
+ *
+ * <p>No endpoint here deals with documents, so {@link Action#READ}, {@link Action#WRITE}
+ * and {@link Action#DELETE} are not derived from existing rules. They are the policy this
+ * table defines for the document service: the SuperAdmin everywhere, Admins read, write
+ * and delete within their own departments, users read and write within their own.
+ */
+public final class AccessDecisionTable {
+    private static final Role.RoleType[] ROLES = Role.RoleType.values();
+    private static final Action[] ACTIONS = Action.values();
+    // Slot 0 is "no target role given"
+    private static final int TARGETS = ROLES.length + 1;
+
+    private static final boolean[] TABLE = compile();
+
+    private AccessDecisionTable() {
+    }
+
+    public enum Action {
+        READ,
+        WRITE,
+        DELETE,
+        ASSIGN_MEMBERS,
+        MANAGE_DEPARTMENT
+    }
+
+    // targetRole is the role of the user being assigned; null when not known or not relevant
+    public static boolean isAllowed(Role.RoleType role, Action action, boolean member, Role.RoleType targetRole) {
+        return TABLE[index(role.ordinal(), action.ordinal(), member, target(targetRole))];
+    }
+
+    private static boolean[] compile() {
+        boolean[] table = new boolean[ROLES.length * ACTIONS.length * 2 * TARGETS];
+        for (Role.RoleType role : ROLES) {
+            for (Action action : ACTIONS) {
+                for (boolean member : new boolean[] {false, true}) {
+                    table[index(role.ordinal(), action.ordinal(), member, target(null))] =
+                        rule(role, action, member, null);
+                    for (Role.RoleType targetRole : ROLES) {
+                        table[index(role.ordinal(), action.ordinal(), member, target(targetRole))] =
+                            rule(role, action, member, targetRole);
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    // The rules themselves; only evaluated once, when the table is built
+    private static boolean rule(Role.RoleType role, Action action, boolean member, Role.RoleType targetRole) {
+        return switch (role) {
+            case SUPERADMIN -> true;
+            case ADMIN -> switch (action) {
+                case READ, WRITE, DELETE -> member;
+                // As in DepartmentController.assign: Admins can only assign regular users
+                case ASSIGN_MEMBERS -> targetRole == Role.RoleType.USER;
+                case MANAGE_DEPARTMENT -> false;
+            };
+            case USER -> switch (action) {
+                case READ, WRITE -> member;
+                case DELETE, ASSIGN_MEMBERS, MANAGE_DEPARTMENT -> false;
+            };
+        };
+    }
+
+    private static int target(Role.RoleType targetRole) {
+        return targetRole == null ? 0 : targetRole.ordinal() + 1;
+    }
+
+    private static int index(int role, int action, boolean member, int target) {
+        return ((role * ACTIONS.length + action) * 2 + (member ? 1 : 0)) * TARGETS + target;
+    }
+}
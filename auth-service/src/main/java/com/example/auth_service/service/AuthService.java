@@ -2,61 +2,98 @@ package com.example.auth_service.service;
 
 import com.example.auth_service.dto.AuthResponse;
 import com.example.auth_service.dto.LoginRequest;
+import com.example.auth_service.dto.RefreshTokenRequest;
 import com.example.auth_service.dto.SignupRequest;
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.model.ChangeEvent;
 import com.example.auth_service.model.Department;
 import com.example.auth_service.model.Role;
 import com.example.auth_service.model.Role.RoleType;
 import com.example.auth_service.model.User;
-import com.example.auth_service.repository.DepartmentRepository;
-import com.example.auth_service.repository.RoleRepository;
 import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.ChangeOutbox.Change;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.ArrayList;
 import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
-    private final DepartmentRepository departmentRepository;
-    private final RoleRepository roleRepository; // Add this
+    private final ReferenceDataCache referenceData;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final CustomUserDetailsService customUserDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final LoginAuditWriter loginAuditWriter;
+    private final ChangeOutbox changeOutbox;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                request.getEmail(),
-                request.getPassword()
-            )
-        );
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        // Before any BCrypt or database work, which is what a credential-stuffing burst targets
+        loginRateLimiter.acquire(request.getEmail(), clientIp);
+        try {
+            authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(
+                    request.getEmail(),
+                    request.getPassword()
+                )
+            );
+        } catch (AuthenticationException e) {
+            loginAuditWriter.record(request.getEmail(), false, clientIp);
+            throw e;
+        }
+        // Also sets users.last_login, asynchronously
+        loginAuditWriter.record(request.getEmail(), true, clientIp);
 
+        // Served from the user cache warmed by the authentication above
         UserDetails userDetails = customUserDetailsService.loadUserByUsername(request.getEmail());
-        User user = userRepository.findByEmail(request.getEmail())
-            .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return AuthResponse.builder()
-            .token(jwtService.generateToken(userDetails))
-            .email(user.getEmail())
-            .role(user.getRole().getName().name()) // Changed to getName().name()
-            .build();
+        return sessionResponse(userDetails, refreshTokenService.issue(userDetails.getUsername()));
     }
 
+    // No BCrypt here: the refresh token itself is the credential
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        if (request.getRefreshToken() == null || request.getRefreshToken().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "refreshToken is required");
+        }
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        return sessionResponse(rotation.userDetails(), rotation.refreshToken());
+    }
+
+    // Revokes the presented access token and, if given, the refresh token's session
+    public void logout(String accessToken, RefreshTokenRequest request) {
+        tokenRevocationService.revoke(jwtService.extractAllClaims(accessToken));
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+    }
+
+    @Transactional
     public AuthResponse signup(SignupRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already in use");
         }
     
         // Get role from database
-        Role role = roleRepository.findByName(Role.RoleType.valueOf(request.getRole()))
+        Role role = referenceData.role(Role.RoleType.valueOf(request.getRole()))
             .orElseThrow(() -> new RuntimeException("Role not found: " + request.getRole()));
-        List<Department> departments = departmentRepository.findAllById(request.getDepartmentIds());
+        List<Department> departments = referenceData.departments(request.getDepartmentIds());
 
         User user = User.builder()
             .name(request.getName())
@@ -71,7 +108,14 @@ public class AuthService {
             .build();
 
         User savedUser = userRepository.save(user);
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(savedUser.getEmail());
+        List<Change> changes = new ArrayList<>();
+        changes.add(Change.user(ChangeEvent.Type.USER_CREATED, savedUser));
+        departments.forEach(department -> changes.add(
+            Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, savedUser.getId(), department.getId())));
+        changeOutbox.record(changes);
+        // After commit, so the membership index and the user caches pick up the new account
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getEmail()));
+        UserDetails userDetails = customUserDetailsService.toUserDetails(savedUser);
 
         return AuthResponse.builder()
             .token(jwtService.generateToken(userDetails))
@@ -80,15 +124,15 @@ public class AuthService {
             .build();
     }
 
+    @Transactional
     public AuthResponse signupSuperadmin(SignupRequest request) {
-        System.out.println("Checking for existing SuperAdmin...");
         boolean exists = userRepository.existsByRoleName(Role.RoleType.SUPERADMIN);
-        System.out.println("SuperAdmin exists: " + exists);
+        log.debug("SuperAdmin exists: {}", exists);
         if (exists) {
             throw new RuntimeException("SuperAdmin already exists");
         }
 
-        Role superadminRole = roleRepository.findByName(Role.RoleType.SUPERADMIN)
+        Role superadminRole = referenceData.role(Role.RoleType.SUPERADMIN)
             .orElseThrow(() -> new RuntimeException("SUPERADMIN role not found"));
 
         User user = User.builder()
@@ -101,12 +145,24 @@ public class AuthService {
             .build();
 
         User savedUser = userRepository.save(user);
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(savedUser.getEmail());
+        changeOutbox.record(Change.user(ChangeEvent.Type.USER_CREATED, savedUser));
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), savedUser.getEmail()));
+        UserDetails userDetails = customUserDetailsService.toUserDetails(savedUser);
+
+        return sessionResponse(userDetails, refreshTokenService.issue(savedUser.getEmail()));
+    }
 
+    private AuthResponse sessionResponse(UserDetails userDetails, String refreshToken) {
         return AuthResponse.builder()
             .token(jwtService.generateToken(userDetails))
-            .email(savedUser.getEmail())
-            .role(savedUser.getRole().getName().name())
+            .expiresIn(jwtService.accessTokenTtl().toSeconds())
+            .refreshToken(refreshToken)
+            .email(userDetails.getUsername())
+            .role(roleName(userDetails))
             .build();
     }
+
+    private static String roleName(UserDetails userDetails) {
+        return userDetails.getAuthorities().iterator().next().getAuthority().substring("ROLE_".length());
+    }
 }
\ No newline at end of file
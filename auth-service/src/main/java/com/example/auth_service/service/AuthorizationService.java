@@ -0,0 +1,94 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.AuthorizationCheckRequest;
+import com.example.auth_service.dto.AuthorizationCheckResultDTO;
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Batch permission checks for services that consume our tokens. The principal's role
+ * comes from the authenticated token, memberships from {@link DepartmentMembershipIndex}
+ * and the rules from {@link AccessDecisionTable}, so each check is a couple of array and
+ * bitmap reads. The only database access is resolving the principal's user id the first
+ * time it is seen.
+ */
+@Service
+public class AuthorizationService {
+    static final int MAX_CHECKS = 10_000;
+
+    private final UserRepository userRepository;
+    private final DepartmentMembershipIndex membershipIndex;
+    private final Cache<String, Long> userIds;
+
+    public AuthorizationService(
+            UserRepository userRepository,
+            DepartmentMembershipIndex membershipIndex,
+            @Value("${auth.user-cache.maximum-size:10000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.membershipIndex = membershipIndex;
+        this.userIds = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public AuthorizationCheckResultDTO check(UserDetails principal, AuthorizationCheckRequest request) {
+        List<AuthorizationCheckRequest.Check> checks = request.getChecks() == null ? List.of() : request.getChecks();
+        if (checks.size() > MAX_CHECKS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_CHECKS + " checks per request");
+        }
+        Role.RoleType role = role(principal);
+        long userId = userId(principal.getUsername());
+
+        BitSet decisions = new BitSet(checks.size());
+        for (int i = 0; i < checks.size(); i++) {
+            AuthorizationCheckRequest.Check check = checks.get(i);
+            if (check == null || check.action() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Check " + i + " has no action");
+            }
+            boolean member = check.departmentId() != null && membershipIndex.isMember(userId, check.departmentId());
+            if (AccessDecisionTable.isAllowed(role, check.action(), member, check.targetRole())) {
+                decisions.set(i);
+            }
+        }
+        return new AuthorizationCheckResultDTO(principal.getUsername(), checks.size(), decisions.cardinality(),
+            Base64.getEncoder().encodeToString(decisions.toByteArray()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        userIds.invalidate(event.email());
+    }
+
+    private long userId(String email) {
+        // Not get(key, loader), which would hold a bin lock during the query
+        Long userId = userIds.getIfPresent(email);
+        if (userId == null) {
+            userId = userRepository.findIdByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unknown principal"));
+            userIds.put(email, userId);
+        }
+        return userId;
+    }
+
+    private static Role.RoleType role(UserDetails principal) {
+        for (GrantedAuthority authority : principal.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name.startsWith("ROLE_")) {
+                return Role.RoleType.valueOf(name.substring("ROLE_".length()));
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Principal has no role");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.auth_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. Adds and lookups are lock-free, so one instance
+ * can be read by request threads while a background job keeps adding to it. It never
+ * forgets: entries are dropped by building a new filter.
+ */
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    // Standard sizing: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hash functions
+    static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1, expectedEntries);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.min(Math.max(bits, 64), (long) Integer.MAX_VALUE * 64);
+        int hashes = (int) Math.max(1, Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(h1, h2, i);
+            long mask = 1L << bit;
+            words.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Kirsch-Mitzenmacher: k indexes from two halves of one 64-bit hash
+    private long index(int h1, int h2, int i) {
+        return Math.floorMod((long) h1 + (long) i * h2, bitCount);
+    }
+
+    // FNV-1a followed by the MurmurHash3 finalizer to spread the bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb3fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.ChangeEventDTO;
+import com.example.auth_service.dto.ChangeFeedDTO;
+import com.example.auth_service.model.ChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Publishes the events written by {@link ChangeOutbox} as a feed ordered by
+ * {@code position}. The relay gives committed events the next positions in batches, in
+ * id order, one transaction per batch:
+ * <ul>
+ *   <li>positions are contiguous and become visible in increasing order, so a consumer
+ *       that has read up to n never finds a new event at or below n later;</li>
+ *   <li>with several instances one relay wins each round: the others find their rows
+ *       already published or their positions taken (the unique index on
+ *       {@code position}), roll back and retry on their next run.</li>
+ * </ul>
+ * Published events are kept for {@code auth.changes.retention}. A consumer whose cursor
+ * is older than that gets 410 Gone, reloads, and continues from {@link #head()}.
+ */
+@Slf4j
+@Service
+public class ChangeFeed {
+    private static final String SELECT_UNPUBLISHED =
+        "SELECT id FROM change_events WHERE position IS NULL ORDER BY id LIMIT ?";
+    private static final String SELECT_HEAD = "SELECT COALESCE(MAX(position), 0) FROM change_events";
+    private static final String PUBLISH =
+        "UPDATE change_events SET position = ?, published_at = ? WHERE id = ? AND position IS NULL";
+    private static final String SELECT_AFTER =
+        "SELECT position, type, aggregate_id, occurred_at, payload FROM change_events " +
+        "WHERE position > ? ORDER BY position LIMIT ?";
+    // Always keeps the newest event, so positions continue from it instead of starting over
+    private static final String PRUNE =
+        "DELETE FROM change_events WHERE id IN (" +
+        "SELECT id FROM change_events WHERE published_at < ? " +
+        "AND position < (SELECT MAX(position) FROM change_events) LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final Counter published;
+
+    public ChangeFeed(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${auth.changes.batch-size:500}") int batchSize,
+            @Value("${auth.changes.retention:7d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Positions reach a replica in commit order too, so the feed may lag there but not skip
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.published = Counter.builder("auth.changes.published").register(meterRegistry);
+    }
+
+    public ChangeFeedDTO read(long since, int limit) {
+        List<ChangeEventDTO> items = readOnlyTransactionTemplate.execute(status -> jdbcTemplate.query(SELECT_AFTER,
+            (rs, i) -> new ChangeEventDTO(
+                rs.getLong(1),
+                ChangeEvent.Type.valueOf(rs.getString(2)),
+                rs.getLong(3),
+                rs.getTimestamp(4).toInstant(),
+                rs.getString(5)),
+            since, limit));
+        // Positions have no gaps, so a jump means the events in between were pruned
+        if (!items.isEmpty() && items.get(0).position() != since + 1) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                "Changes after " + since + " are no longer retained; reload and continue from /api/changes/head");
+        }
+        return new ChangeFeedDTO(items, items.isEmpty() ? since : items.get(items.size() - 1).position());
+    }
+
+    public long head() {
+        return readOnlyTransactionTemplate.execute(status -> jdbcTemplate.queryForObject(SELECT_HEAD, Long.class));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.changes.relay-interval:500ms}")
+    public synchronized void relay() {
+        try {
+            int count;
+            do {
+                count = transactionTemplate.execute(status -> publishBatch());
+                published.increment(count);
+            } while (count == batchSize);
+        } catch (DuplicateKeyException | ConcurrencyFailureException e) {
+            log.debug("Another instance published the pending changes first", e);
+        }
+    }
+
+    private int publishBatch() {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_UNPUBLISHED, Long.class, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long head = jdbcTemplate.queryForObject(SELECT_HEAD, Long.class);
+        List<long[]> positions = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            positions.add(new long[] {id, ++head});
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        int[][] updated = jdbcTemplate.batchUpdate(PUBLISH, positions, positions.size(), (ps, row) -> {
+            ps.setLong(1, row[1]);
+            ps.setTimestamp(2, now);
+            ps.setLong(3, row[0]);
+        });
+        if (Arrays.stream(updated[0]).anyMatch(count -> count != 1)) {
+            throw new ConcurrencyFailureException("Change events were published concurrently");
+        }
+        return ids.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.changes.prune-interval:1h}",
+               initialDelayString = "${auth.changes.prune-interval:1h}")
+    public void prune() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> jdbcTemplate.update(PRUNE, cutoff, batchSize));
+        } while (deleted == batchSize);
+    }
+}
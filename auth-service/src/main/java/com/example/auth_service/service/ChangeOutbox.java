@@ -0,0 +1,89 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.ChangeEvent;
+import com.example.auth_service.model.Department;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Transactional outbox for the changes other services mirror. Events are inserted in the
+ * caller's transaction, which is mandatory, so they commit or roll back together with the
+ * change they describe; {@link ChangeFeed} publishes them afterwards.
+ *
+ * <p>Payloads carry the state after the change, so consumers can apply events to their
+ * copies without calling back.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChangeOutbox {
+    private static final String INSERT_EVENT =
+        "INSERT INTO change_events (type, aggregate_id, payload, occurred_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Change change) {
+        record(List.of(change));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_EVENT, changes, changes.size(), (ps, change) -> {
+            ps.setString(1, change.type().name());
+            ps.setLong(2, change.aggregateId());
+            ps.setString(3, json(change.payload()));
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    private String json(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize change payload", e);
+        }
+    }
+
+    public record Change(ChangeEvent.Type type, Long aggregateId, Object payload) {
+        public static Change user(ChangeEvent.Type type, User user) {
+            return new Change(type, user.getId(), UserState.of(user));
+        }
+
+        public static Change department(ChangeEvent.Type type, Department department) {
+            return new Change(type, department.getId(), new DepartmentState(department.getId(), department.getName()));
+        }
+
+        public static Change membership(ChangeEvent.Type type, Long userId, Long departmentId) {
+            return new Change(type, userId, new Membership(userId, departmentId));
+        }
+    }
+
+    public record UserState(Long id, String email, String name, String position, Role.RoleType role, String status) {
+        static UserState of(User user) {
+            return new UserState(user.getId(), user.getEmail(), user.getName(), user.getPosition(),
+                user.getRole().getName(), user.getStatus());
+        }
+    }
+
+    public record DepartmentState(Long id, String name) {
+    }
+
+    public record Membership(Long userId, Long departmentId) {
+    }
+}
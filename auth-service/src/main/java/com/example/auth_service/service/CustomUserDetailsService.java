@@ -1,39 +1,118 @@
 package com.example.auth_service.service;
 
+import com.example.auth_service.event.UserChangedEvent;
 import com.example.auth_service.model.User;
 import com.example.auth_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final Cache<String, CachedUser> cache;
+    private final Timer cachedLoads;
+    private final Timer databaseLoads;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${auth.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${auth.user-cache.ttl:5m}") Duration ttl) {
         this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users.details");
+        this.cachedLoads = loadTimer(meterRegistry, "cache");
+        this.databaseLoads = loadTimer(meterRegistry, "database");
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-
-        // Create authority with ROLE_ prefix
-        GrantedAuthority authority = new SimpleGrantedAuthority(
-            "ROLE_" + user.getRole().getName().name() // Ensure this returns the enum name
-        );
-
-        return new org.springframework.security.core.userdetails.User(
-            user.getEmail(),
-            user.getPassword(),
-            Collections.singletonList(authority) // Wrap in a list
-        );
+        // Not cache.get(key, loader): the loader would run the query while holding a map bin
+        // lock, which pins the carrier thread when running on virtual threads
+        long start = System.nanoTime();
+        CachedUser cached = cache.getIfPresent(email);
+        if (cached != null) {
+            cachedLoads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached.toUserDetails();
+        }
+        try {
+            User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+            cached = CachedUser.of(user);
+            cache.put(email, cached);
+            return cached.toUserDetails();
+        } finally {
+            databaseLoads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
-}
\ No newline at end of file
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("auth.user_details.load")
+            .tag("source", source)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Called by the AuthenticationManager after a successful login whose stored hash uses a
+     * different algorithm or cost than configured; stores the re-hashed password.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+        cache.invalidate(user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+            .password(newPassword)
+            .build();
+    }
+
+    // For callers that already hold the entity, e.g. right after saving it
+    public UserDetails toUserDetails(User user) {
+        return CachedUser.of(user).toUserDetails();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cache.invalidate(event.email());
+    }
+
+    /*
+     * Immutable snapshot of the fields UserDetails needs. A fresh UserDetails is handed out
+     * on every call because the AuthenticationManager erases the password on the instance
+     * it authenticated.
+     */
+    private record CachedUser(String email, String password, List<GrantedAuthority> authorities) {
+        static CachedUser of(User user) {
+            // Create authority with ROLE_ prefix
+            GrantedAuthority authority = new SimpleGrantedAuthority(
+                "ROLE_" + user.getRole().getName().name() // Ensure this returns the enum name
+            );
+            return new CachedUser(user.getEmail(), user.getPassword(), Collections.singletonList(authority));
+        }
+
+        UserDetails toUserDetails() {
+            return new org.springframework.security.core.userdetails.User(email, password, authorities);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.BulkAssignmentResultDTO;
+import com.example.auth_service.dto.BulkAssignmentResultDTO.Row;
+import com.example.auth_service.dto.BulkAssignmentResultDTO.Status;
+import com.example.auth_service.dto.BulkDepartmentAssignmentDTO;
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.model.ChangeEvent;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.service.ChangeOutbox.Change;
+import com.example.auth_service.util.RoleUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Many users x many departments in one call. Lookups and the permission check are done
+ * once for the whole request, and the join table is changed with a single set-based
+ * statement whose RETURNING clause tells which pairs actually changed, so repeating a
+ * request is harmless and every pair gets an exact status.
+ */
+@Service
+@RequiredArgsConstructor
+public class DepartmentAssignmentService {
+    static final int MAX_PAIRS = 10_000;
+
+    private static final String INSERT_PAIRS =
+        "INSERT INTO user_departments (user_id, department_id) " +
+        "SELECT p.user_id, p.department_id FROM unnest(?, ?) AS p(user_id, department_id) " +
+        "WHERE NOT EXISTS (SELECT 1 FROM user_departments ud " +
+        "                  WHERE ud.user_id = p.user_id AND ud.department_id = p.department_id) " +
+        "ON CONFLICT DO NOTHING " +
+        "RETURNING user_id, department_id";
+
+    private static final String DELETE_PAIRS =
+        "DELETE FROM user_departments ud " +
+        "USING unnest(?, ?) AS p(user_id, department_id) " +
+        "WHERE ud.user_id = p.user_id AND ud.department_id = p.department_id " +
+        "RETURNING ud.user_id, ud.department_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeOutbox changeOutbox;
+
+    @Transactional
+    public BulkAssignmentResultDTO assign(BulkDepartmentAssignmentDTO request, UserDetails currentUser) {
+        return apply(request, currentUser, true);
+    }
+
+    @Transactional
+    public BulkAssignmentResultDTO unassign(BulkDepartmentAssignmentDTO request, UserDetails currentUser) {
+        return apply(request, currentUser, false);
+    }
+
+    private BulkAssignmentResultDTO apply(BulkDepartmentAssignmentDTO request, UserDetails currentUser, boolean assign) {
+        List<Long> userIds = distinct(request.getUserIds());
+        List<Long> departmentIds = distinct(request.getDepartmentIds());
+        if (userIds.isEmpty() || departmentIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userIds and departmentIds are required");
+        }
+        if ((long) userIds.size() * departmentIds.size() > MAX_PAIRS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + MAX_PAIRS + " user/department pairs per request");
+        }
+
+        Map<Long, TargetUser> users = loadUsers(userIds);
+        Set<Long> departments = loadDepartmentIds(departmentIds);
+        boolean isSuperAdmin = RoleUtils.isSuperAdmin(currentUser);
+        boolean isAdmin = RoleUtils.isAdmin(currentUser);
+
+        // Single pass: decide every rejected pair up front, collect the rest for one statement
+        Map<Pair, Status> rejected = new HashMap<>();
+        List<Pair> requested = new ArrayList<>();
+        List<Pair> allowed = new ArrayList<>();
+        for (Long userId : userIds) {
+            TargetUser user = users.get(userId);
+            Status userStatus = null;
+            if (user == null) {
+                userStatus = Status.USER_NOT_FOUND;
+            } else if (!isSuperAdmin && !(isAdmin && user.role() == Role.RoleType.USER)) {
+                // Admins can only manage regular users
+                userStatus = Status.FORBIDDEN;
+            }
+            for (Long departmentId : departmentIds) {
+                Pair pair = new Pair(userId, departmentId);
+                requested.add(pair);
+                if (userStatus != null) {
+                    rejected.put(pair, userStatus);
+                } else if (!departments.contains(departmentId)) {
+                    rejected.put(pair, Status.DEPARTMENT_NOT_FOUND);
+                } else {
+                    allowed.add(pair);
+                }
+            }
+        }
+
+        Set<Pair> changed = allowed.isEmpty() ? Set.of() : writePairs(assign ? INSERT_PAIRS : DELETE_PAIRS, allowed);
+
+        List<Row> results = new ArrayList<>(requested.size());
+        Set<Long> changedUsers = new HashSet<>();
+        List<Change> changes = new ArrayList<>(changed.size());
+        ChangeEvent.Type changeType = assign
+            ? ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED
+            : ChangeEvent.Type.DEPARTMENT_MEMBER_REMOVED;
+        for (Pair pair : requested) {
+            Status status = rejected.get(pair);
+            if (status == null) {
+                boolean didChange = changed.contains(pair);
+                if (didChange) {
+                    changedUsers.add(pair.userId());
+                    changes.add(Change.membership(changeType, pair.userId(), pair.departmentId()));
+                }
+                status = assign
+                    ? (didChange ? Status.ASSIGNED : Status.ALREADY_ASSIGNED)
+                    : (didChange ? Status.UNASSIGNED : Status.NOT_ASSIGNED);
+            }
+            results.add(new Row(pair.userId(), pair.departmentId(), status));
+        }
+
+        changeOutbox.record(changes);
+        changedUsers.forEach(userId ->
+            eventPublisher.publishEvent(new UserChangedEvent(userId, users.get(userId).email())));
+        return BulkAssignmentResultDTO.of(results);
+    }
+
+    private Set<Pair> writePairs(String sql, List<Pair> pairs) {
+        Long[] userIds = pairs.stream().map(Pair::userId).toArray(Long[]::new);
+        Long[] departmentIds = pairs.stream().map(Pair::departmentId).toArray(Long[]::new);
+        List<Pair> written = jdbcTemplate.query(
+            connection -> {
+                var statement = connection.prepareStatement(sql);
+                statement.setArray(1, connection.createArrayOf("bigint", userIds));
+                statement.setArray(2, connection.createArrayOf("bigint", departmentIds));
+                return statement;
+            },
+            (rs, rowNum) -> new Pair(rs.getLong(1), rs.getLong(2)));
+        return new HashSet<>(written);
+    }
+
+    private Map<Long, TargetUser> loadUsers(List<Long> userIds) {
+        Map<Long, TargetUser> users = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+            "SELECT u.id, u.email, r.name FROM users u JOIN role r ON r.id = u.role_id WHERE u.id IN (:ids)",
+            Map.of("ids", userIds),
+            rs -> {
+                users.put(rs.getLong(1), new TargetUser(rs.getString(2), Role.RoleType.valueOf(rs.getString(3))));
+            });
+        return users;
+    }
+
+    private Set<Long> loadDepartmentIds(List<Long> departmentIds) {
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+            "SELECT id FROM department WHERE id IN (:ids)",
+            Map.of("ids", departmentIds),
+            Long.class));
+    }
+
+    private static List<Long> distinct(List<Long> ids) {
+        if (ids == null) {
+            return List.of();
+        }
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        return new ArrayList<>(unique);
+    }
+
+    private record Pair(long userId, long departmentId) {
+    }
+
+    private record TargetUser(String email, Role.RoleType role) {
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.ChangeEventDTO;
+import com.example.auth_service.dto.ChangeFeedDTO;
+import com.example.auth_service.event.UserChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory copy of {@code user_departments}: one bitmap of user ids per department.
+ * User ids come from an identity column and are dense, so a {@link BitSet} costs about one
+ * bit per user and department and answers membership, intersection and count queries
+ * without touching the database.
+ *
+ * <p>Readers see an immutable snapshot. Writers replace only the bitmaps they change. The
+ * index reloads a user's departments on every {@link UserChangedEvent} of this instance
+ * and on every user or membership event in the {@link ChangeFeed}, which carries the
+ * changes of all instances. It is rebuilt periodically to catch writes that bypass the
+ * application.
+ *
+ * <p>Reloads of one user are serialized, so each one reads the rows after the previous
+ * one and a slower, older reload never overwrites a newer one. A rebuild scans without
+ * blocking them; reloads and deletions applied meanwhile are replayed onto its result.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DepartmentMembershipIndex {
+    private static final BitSet EMPTY = new BitSet();
+    private static final int FEED_PAGE_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeed changeFeed;
+
+    private volatile Map<Long, BitSet> members = Map.of();
+    // Guards replacing members; never held during a query
+    private final Object membersLock = new Object();
+    // Held from a user's query to applying its result, so reloads of one user apply in order
+    private final ReentrantLock[] userLocks = stripes(64);
+    // Serializes rebuild() and follow(), which share the feed cursor
+    private final ReentrantLock maintenance = new ReentrantLock();
+    // Changes applied while a rebuild is scanning, replayed onto its result
+    private Map<Long, Set<Long>> pendingUsers;
+    private Set<Long> pendingDeletedDepartments;
+    // Feed position the index has caught up with; negative until the first rebuild
+    private long feedCursor = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.membership-index.refresh-interval:10m}",
+               initialDelayString = "${auth.membership-index.refresh-interval:10m}")
+    public void rebuild() {
+        maintenance.lock();
+        try {
+            synchronized (membersLock) {
+                pendingUsers = new LinkedHashMap<>();
+                pendingDeletedDepartments = new HashSet<>();
+            }
+            // Taken before the scan: events after it are replayed by follow(), some of them needlessly
+            long head = changeFeed.head();
+            Map<Long, BitSet> rebuilt = new HashMap<>();
+            jdbcTemplate.query("SELECT department_id, user_id FROM user_departments", rs -> {
+                rebuilt.computeIfAbsent(rs.getLong(1), id -> new BitSet()).set(bit(rs.getLong(2)));
+            });
+            synchronized (membersLock) {
+                members = Map.copyOf(rebuilt);
+                pendingUsers.forEach(this::applyMemberships);
+                pendingDeletedDepartments.forEach(this::applyDepartmentDeleted);
+                pendingUsers = null;
+                pendingDeletedDepartments = null;
+            }
+            feedCursor = head;
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    /**
+     * Reloads the users touched by changes since the last call, including those made
+     * through other instances. Falls back to a rebuild when the feed no longer has them.
+     */
+    @Scheduled(fixedDelayString = "${auth.membership-index.follow-interval:1s}",
+               initialDelayString = "${auth.membership-index.follow-interval:1s}")
+    public void follow() {
+        maintenance.lock();
+        try {
+            if (feedCursor < 0) {
+                return;
+            }
+            ChangeFeedDTO page;
+            do {
+                page = changeFeed.read(feedCursor, FEED_PAGE_SIZE);
+                Set<Long> users = new LinkedHashSet<>();
+                for (ChangeEventDTO event : page.items()) {
+                    switch (event.type()) {
+                        case USER_CREATED, USER_UPDATED, USER_DELETED,
+                             DEPARTMENT_MEMBER_ADDED, DEPARTMENT_MEMBER_REMOVED -> users.add(event.aggregateId());
+                        case DEPARTMENT_DELETED -> departmentDeleted(event.aggregateId());
+                        default -> { }
+                    }
+                }
+                users.forEach(this::reload);
+                feedCursor = page.nextCursor();
+            } while (page.items().size() == FEED_PAGE_SIZE);
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() != HttpStatus.GONE) {
+                throw e;
+            }
+            log.warn("Membership index fell behind the change feed retention; rebuilding");
+            rebuild();
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    public boolean isMember(long userId, long departmentId) {
+        return userId >= 0 && userId <= Integer.MAX_VALUE
+            && members.getOrDefault(departmentId, EMPTY).get((int) userId);
+    }
+
+    public int count(long departmentId) {
+        return members.getOrDefault(departmentId, EMPTY).cardinality();
+    }
+
+    public long[] members(long departmentId) {
+        return members.getOrDefault(departmentId, EMPTY).stream().asLongStream().toArray();
+    }
+
+    // Users that belong to every one of the given departments
+    public BitSet intersection(Collection<Long> departmentIds) {
+        Map<Long, BitSet> snapshot = members;
+        BitSet result = null;
+        for (Long departmentId : departmentIds) {
+            BitSet department = snapshot.getOrDefault(departmentId, EMPTY);
+            if (result == null) {
+                result = (BitSet) department.clone();
+            } else {
+                result.and(department);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new BitSet() : result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.userId() != null) {
+            reload(event.userId());
+        }
+    }
+
+    public void departmentDeleted(long departmentId) {
+        synchronized (membersLock) {
+            applyDepartmentDeleted(departmentId);
+            if (pendingDeletedDepartments != null) {
+                pendingDeletedDepartments.add(departmentId);
+            }
+        }
+    }
+
+    private void reload(long userId) {
+        ReentrantLock lock = userLocks[Long.hashCode(userId) & (userLocks.length - 1)];
+        lock.lock();
+        try {
+            Set<Long> departmentIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT department_id FROM user_departments WHERE user_id = ?", Long.class, userId));
+            synchronized (membersLock) {
+                applyMemberships(userId, departmentIds);
+                if (pendingUsers != null) {
+                    pendingUsers.put(userId, departmentIds);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applyDepartmentDeleted(long departmentId) {
+        Map<Long, BitSet> updated = new HashMap<>(members);
+        updated.remove(departmentId);
+        members = Map.copyOf(updated);
+    }
+
+    // Callers hold membersLock
+    private void applyMemberships(long userId, Set<Long> departmentIds) {
+        int bit = bit(userId);
+        Map<Long, BitSet> updated = null;
+        Set<Long> candidates = new HashSet<>(members.keySet());
+        candidates.addAll(departmentIds);
+        for (Long departmentId : candidates) {
+            BitSet current = members.getOrDefault(departmentId, EMPTY);
+            boolean member = departmentIds.contains(departmentId);
+            if (current.get(bit) == member) {
+                continue;
+            }
+            // Copy on write: published bitmaps are never modified
+            BitSet copy = (BitSet) current.clone();
+            copy.set(bit, member);
+            if (updated == null) {
+                updated = new HashMap<>(members);
+            }
+            if (copy.isEmpty()) {
+                updated.remove(departmentId);
+            } else {
+                updated.put(departmentId, copy);
+            }
+        }
+        if (updated != null) {
+            members = Map.copyOf(updated);
+        }
+    }
+
+    private static ReentrantLock[] stripes(int count) {
+        ReentrantLock[] locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private static int bit(long userId) {
+        if (userId < 0 || userId > Integer.MAX_VALUE) {
+            throw new IllegalStateException("User id out of range for the membership index: " + userId);
+        }
+        return (int) userId;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.config.JwtKeyProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Default {@link JwtKeySource}: HMAC keys and asymmetric key pairs addressed by
+ * {@code kid}. Keys can be added, activated and retired at runtime, so rotation does not
+ * need a restart: add the new key, activate it once other services have picked it up from
+ * the JWK set, and retire the old one once its tokens have expired.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing implements JwtKeySource {
+    // Tokens issued before key ids were introduced carry no kid header
+    static final String LEGACY_KEY_ID = "default";
+    // Public in the source, so anyone can mint tokens it signs; development only
+    private static final String LEGACY_SECRET = "AZERTYUIOPQSDFGHJKLMWXCVBN12345678900987654321NBVCXWMLKJHGFDSQPOIUYTREZA";
+
+    private final VerifiedTokenCache tokenCache;
+
+    // Copy-on-write: readers never lock, writers replace the whole snapshot
+    private volatile Map<String, RingKey> keys;
+    private volatile SigningKey activeKey;
+
+    public JwtKeyRing(JwtKeyProperties properties, VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+        Map<String, RingKey> configured = new HashMap<>();
+        if (properties.keys() != null) {
+            properties.keys().forEach((id, secret) -> configured.put(id, hmac(id, secret)));
+        }
+        if (properties.keyPairs() != null) {
+            properties.keyPairs().forEach((id, pair) -> configured.put(id, keyPair(id, pair)));
+        }
+        if (configured.isEmpty()) {
+            if (!properties.allowBuiltInKey()) {
+                throw new IllegalStateException("No JWT signing key configured: set auth.jwt.signing.keys.<kid> "
+                    + "or auth.jwt.signing.key-pairs.<kid>, or run with the dev profile to use the built-in key");
+            }
+            log.warn("Signing JWTs with the built-in development key; configure auth.jwt.signing keys before "
+                + "exposing this instance");
+            configured.put(LEGACY_KEY_ID, hmac(LEGACY_KEY_ID, LEGACY_SECRET));
+        }
+        String activeKeyId = properties.activeKeyId() != null ? properties.activeKeyId() : LEGACY_KEY_ID;
+        if (!configured.containsKey(activeKeyId)) {
+            throw new IllegalStateException("Active JWT key '" + activeKeyId + "' is not configured");
+        }
+        this.keys = Map.copyOf(configured);
+        this.activeKey = configured.get(activeKeyId).signing();
+    }
+
+    @Override
+    public SigningKey signingKey() {
+        return activeKey;
+    }
+
+    @Override
+    public Key verificationKey(String keyId) {
+        RingKey key = keys.get(keyId != null ? keyId : LEGACY_KEY_ID);
+        return key != null ? key.verificationKey() : null;
+    }
+
+    @Override
+    public List<PublicJwk<?>> publicKeys() {
+        return keys.values().stream()
+            .map(RingKey::jwk)
+            .filter(Objects::nonNull)
+            .<PublicJwk<?>>map(jwk -> jwk)
+            .toList();
+    }
+
+    public synchronized void addKey(String keyId, String base64Secret) {
+        put(keyId, hmac(keyId, base64Secret));
+    }
+
+    public synchronized void addKeyPair(String keyId, String algorithm, KeyPair keyPair) {
+        put(keyId, keyPair(keyId, signatureAlgorithm(algorithm), keyPair));
+    }
+
+    public synchronized void activate(String keyId) {
+        RingKey key = keys.get(keyId);
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown JWT key: " + keyId);
+        }
+        activeKey = key.signing();
+    }
+
+    public synchronized void retire(String keyId) {
+        if (activeKey.id().equals(keyId)) {
+            throw new IllegalArgumentException("Cannot retire the active JWT key: " + keyId);
+        }
+        Map<String, RingKey> updated = new HashMap<>(keys);
+        updated.remove(keyId);
+        keys = Map.copyOf(updated);
+        // Claims verified with the retired key must not keep being served from the cache
+        tokenCache.invalidateAll();
+    }
+
+    private void put(String keyId, RingKey key) {
+        Map<String, RingKey> updated = new HashMap<>(keys);
+        updated.put(keyId, key);
+        keys = Map.copyOf(updated);
+    }
+
+    private static RingKey hmac(String keyId, String base64Secret) {
+        Key secret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        return new RingKey(new SigningKey(keyId, secret, Jwts.SIG.HS256), secret, null);
+    }
+
+    private static RingKey keyPair(String keyId, JwtKeyProperties.KeyPair properties) {
+        SignatureAlgorithm algorithm = signatureAlgorithm(properties.algorithm());
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyFamily(algorithm));
+            KeyPair keyPair = new KeyPair(
+                keyFactory.generatePublic(new X509EncodedKeySpec(der(properties.publicKey()))),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(der(properties.privateKey()))));
+            return keyPair(keyId, algorithm, keyPair);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid key pair for JWT key '" + keyId + "'", e);
+        }
+    }
+
+    private static RingKey keyPair(String keyId, SignatureAlgorithm algorithm, KeyPair keyPair) {
+        PublicKey publicKey = keyPair.getPublic();
+        PublicJwk<?> jwk = Jwks.builder()
+            .key(publicKey)
+            .id(keyId)
+            .algorithm(algorithm.getId())
+            .publicKeyUse("sig")
+            .build();
+        return new RingKey(new SigningKey(keyId, keyPair.getPrivate(), algorithm), publicKey, jwk);
+    }
+
+    static SignatureAlgorithm signatureAlgorithm(String algorithmId) {
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().get(algorithmId);
+        if (!(algorithm instanceof SignatureAlgorithm signatureAlgorithm)) {
+            throw new IllegalStateException("Not an asymmetric JWS algorithm: " + algorithmId);
+        }
+        return signatureAlgorithm;
+    }
+
+    private static String keyFamily(SignatureAlgorithm algorithm) {
+        String id = algorithm.getId();
+        if (id.startsWith("RS") || id.startsWith("PS")) {
+            return "RSA";
+        }
+        if (id.startsWith("ES")) {
+            return "EC";
+        }
+        return "EdDSA";
+    }
+
+    private static byte[] der(String encoded) {
+        String base64 = encoded.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    // verificationKey is the secret itself for HMAC and the public key otherwise
+    private record RingKey(SigningKey signing, Key verificationKey, PublicJwk<?> jwk) {
+    }
+}
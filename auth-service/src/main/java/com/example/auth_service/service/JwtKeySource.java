@@ -0,0 +1,26 @@
+package com.example.auth_service.service;
+
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import java.security.Key;
+import java.util.List;
+
+/**
+ * Supplies key material to {@link JwtService}. Implementations must be thread-safe and
+ * may change their keys at runtime; JwtService looks keys up on every sign/verify.
+ */
+public interface JwtKeySource {
+
+    /** Key that signs newly issued tokens. */
+    SigningKey signingKey();
+
+    /** Verification key for a token's {@code kid} header, or {@code null} when unknown. */
+    Key verificationKey(String keyId);
+
+    /** Public keys other services verify tokens with; shared secrets are never included. */
+    List<PublicJwk<?>> publicKeys();
+
+    record SigningKey(String id, Key key, SecureDigestAlgorithm<?, ?> algorithm) {
+    }
+}
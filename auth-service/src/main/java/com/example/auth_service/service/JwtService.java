@@ -1,21 +1,65 @@
 package com.example.auth_service.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-    private static final String SECRET_KEY = "AZERTYUIOPQSDFGHJKLMWXCVBN12345678900987654321NBVCXWMLKJHGFDSQPOIUYTREZA"; // Replace with a secure key
+    static final String ROLES_CLAIM = "roles";
+    static final String VERSION_CLAIM = "ver";
+
+    private final VerifiedTokenCache tokenCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final JwtKeySource keySource;
+    // Short on purpose: clients renew through the refresh token instead of logging in again
+    private final Duration accessTokenTtl;
+    // Immutable and thread-safe; the key is resolved per token from its kid header
+    private final JwtParser parser;
+    private final Timer signTimer;
+    // Only full verifications; tokens served from the cache are counted in its metrics
+    private final Timer verifyTimer;
+
+    public JwtService(
+            VerifiedTokenCache tokenCache,
+            TokenVersionRegistry tokenVersionRegistry,
+            JwtKeySource keySource,
+            MeterRegistry meterRegistry,
+            @Value("${auth.jwt.access-token.ttl:15m}") Duration accessTokenTtl) {
+        this.tokenCache = tokenCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.keySource = keySource;
+        this.accessTokenTtl = accessTokenTtl;
+        this.signTimer = Timer.builder("auth.jwt.sign").publishPercentileHistogram().register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.jwt.verify").publishPercentileHistogram().register(meterRegistry);
+        this.parser = Jwts.parser()
+            .keyLocator(new LocatorAdapter<Key>() {
+                @Override
+                protected Key locate(JwsHeader header) {
+                    return keySource.verificationKey(header.getKeyId());
+                }
+            })
+            .build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -27,47 +71,78 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .toList());
+        claims.put(VERSION_CLAIM, tokenVersionRegistry.currentVersion(userDetails.getUsername()));
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(
         Map<String, Object> extraClaims,
         UserDetails userDetails
     ) {
+        return signTimer.record(() -> sign(extraClaims, userDetails));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String sign(Map<String, Object> extraClaims, UserDetails userDetails) {
+        JwtKeySource.SigningKey signingKey = keySource.signingKey();
+        long now = System.currentTimeMillis();
         return Jwts
             .builder()
-            .setClaims(extraClaims)
-            .setSubject(userDetails.getUsername())
-            .setIssuedAt(new Date(System.currentTimeMillis()))
-            .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 24 hours
-            .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+            .header().keyId(signingKey.id()).and()
+            .claims(extraClaims)
+            .subject(userDetails.getUsername())
+            // Lets a single token be revoked, see TokenRevocationService
+            .id(UUID.randomUUID().toString())
+            .issuedAt(new Date(now))
+            .expiration(new Date(now + accessTokenTtl.toMillis()))
+            .signWith(signingKey.key(), (SecureDigestAlgorithm<Key, ?>) signingKey.algorithm())
             .compact();
     }
 
+    public Duration accessTokenTtl() {
+        return accessTokenTtl;
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // Tokens issued before the roles/version claims existed cannot be trusted on their own
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(ROLES_CLAIM) != null && claims.get(VERSION_CLAIM) != null;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-            .parser()
-            .setSigningKey(getSignInKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    public int extractTokenVersion(Claims claims) {
+        return claims.get(VERSION_CLAIM, Integer.class);
+    }
+
+    // Rebuilds the principal from the signed claims; the password is never part of a token
+    public UserDetails buildPrincipal(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        List<GrantedAuthority> authorities = roles.stream()
+            .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.toString()))
+            .toList();
+        return new User(claims.getSubject(), "", authorities);
+    }
+
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    // Signature checks are served from the verified-token cache after the first request
+    public Claims extractAllClaims(String token) {
+        return tokenCache.getOrVerify(token, this::parseClaims);
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Claims parseClaims(String token) {
+        return verifyTimer.record(() -> parser.parseSignedClaims(token).getPayload());
     }
 }
\ No newline at end of file
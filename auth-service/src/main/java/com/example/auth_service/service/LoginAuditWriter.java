@@ -0,0 +1,234 @@
+package com.example.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records login attempts off the request path. Logins only enqueue an event; a single
+ * background thread drains the queue and per flush appends the audit rows with one JDBC
+ * batch and sets {@code users.last_login} with at most one UPDATE per user, all in one
+ * transaction.
+ *
+ * <p>Loss is bounded and never slows logins down:
+ * <ul>
+ *   <li>the queue is bounded; when it is full new events are dropped, not waited for;</li>
+ *   <li>a flush rejected for its data is split in halves and retried until the offending
+ *       rows are isolated, and only those are dropped; any other failure drops the flush
+ *       as a whole, without retry;</li>
+ *   <li>on shutdown the queue gets one last flush; events still queued when the process
+ *       dies are lost, at most the queue capacity plus one batch.</li>
+ * </ul>
+ * Every dropped event is counted in {@code auth.login.audit.dropped}.
+ */
+@Slf4j
+@Service
+public class LoginAuditWriter implements DisposableBean {
+    private static final String INSERT_AUDIT =
+        "INSERT INTO login_audit (email, success, client_ip, occurred_at) VALUES (?, ?, ?, ?)";
+    // Never moves last_login backwards when batches from several instances interleave
+    private static final String UPDATE_LAST_LOGIN =
+        "UPDATE users SET last_login = ? WHERE email = ? AND (last_login IS NULL OR last_login < ?)";
+    // Column sizes of login_audit; the email is whatever the client sent
+    static final int EMAIL_LENGTH = 255;
+    static final int CLIENT_IP_LENGTH = 45;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<LoginEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Thread writer;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter written;
+    private final Counter droppedQueueFull;
+    private final Counter droppedFlushFailed;
+    private volatile boolean running = true;
+
+    public LoginAuditWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${auth.login-audit.queue-capacity:10000}") int queueCapacity,
+            @Value("${auth.login-audit.batch-size:500}") int batchSize,
+            @Value("${auth.login-audit.flush-interval:1s}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.succeeded = attempts(meterRegistry, "success");
+        this.failed = attempts(meterRegistry, "failure");
+        this.written = Counter.builder("auth.login.audit.written").register(meterRegistry);
+        this.droppedQueueFull = dropped(meterRegistry, "queue_full");
+        this.droppedFlushFailed = dropped(meterRegistry, "flush_failed");
+        Gauge.builder("auth.login.audit.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.writer = new Thread(this::run, "login-audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Never blocks: the event is dropped if the writer has fallen behind
+    public void record(String email, boolean success, String clientIp) {
+        (success ? succeeded : failed).increment();
+        if (email == null) {
+            return;
+        }
+        LoginEvent event = new LoginEvent(
+            truncate(email, EMAIL_LENGTH), success, truncate(clientIp, CLIENT_IP_LENGTH), Instant.now());
+        if (!queue.offer(event)) {
+            droppedQueueFull.increment();
+        }
+    }
+
+    private void run() {
+        List<LoginEvent> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        try {
+            while (running) {
+                LoginEvent first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Collect for up to one interval, so a trickle of logins still shares a transaction
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    LoginEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            }
+        } catch (InterruptedException e) {
+            // Woken up by destroy(); the flag is restored after the last flush so JDBC still works
+            interrupted = true;
+        }
+        // Shutting down: whatever is still queued gets one last chance
+        do {
+            flush(batch);
+        } while (queue.drainTo(batch, batchSize) > 0);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(List<LoginEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            write(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void write(List<LoginEvent> batch) {
+        try {
+            writeBatch(batch);
+            written.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                log.warn("Dropped a login audit event the database rejected: {}", e.getMessage());
+                droppedFlushFailed.increment();
+                return;
+            }
+            // Some row is bad; keep the rest of the batch
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+        } catch (RuntimeException e) {
+            log.warn("Dropped {} login audit events after a failed flush", batch.size(), e);
+            droppedFlushFailed.increment(batch.size());
+        }
+    }
+
+    private void writeBatch(List<LoginEvent> batch) {
+        Map<String, Instant> lastLogins = new HashMap<>();
+        for (LoginEvent event : batch) {
+            if (event.success()) {
+                lastLogins.merge(event.email(), event.occurredAt(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_AUDIT, batch, batch.size(), (ps, event) -> {
+                ps.setString(1, event.email());
+                ps.setBoolean(2, event.success());
+                ps.setString(3, event.clientIp());
+                ps.setTimestamp(4, Timestamp.from(event.occurredAt()));
+            });
+            if (lastLogins.isEmpty()) {
+                return;
+            }
+            List<Map.Entry<String, Instant>> updates = new ArrayList<>(lastLogins.entrySet());
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, updates, updates.size(), (ps, update) -> {
+                // users.last_login is a LocalDateTime column in server time
+                Timestamp lastLogin = Timestamp.valueOf(
+                    LocalDateTime.ofInstant(update.getValue(), ZoneId.systemDefault()));
+                ps.setTimestamp(1, lastLogin);
+                ps.setString(2, update.getKey());
+                ps.setTimestamp(3, lastLogin);
+            });
+        });
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        // Without the interrupt an idle writer would sleep out its poll before the final flush
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static Counter attempts(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.login.attempts")
+            .description("Password logins by outcome; rate-limited attempts are in auth.login.rate_limited")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.login.audit.dropped")
+            .description("Login events that were never written")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private record LoginEvent(String email, boolean success, String clientIp, Instant occurredAt) {
+    }
+}
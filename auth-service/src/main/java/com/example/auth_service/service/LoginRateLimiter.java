@@ -0,0 +1,135 @@
+package com.example.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps login attempts per email and per client IP before any password hashing or database
+ * work happens. Each key has a sliding window approximated from two fixed windows, the
+ * previous count weighted by how much of it still overlaps the sliding window. The window
+ * index and both counts are packed into one {@link AtomicLong} updated by CAS, so there
+ * are no locks on the login path. Keys live in a bounded cache and disappear once idle.
+ */
+@Component
+public class LoginRateLimiter {
+    private static final long COUNT_MASK = 0xFFFF;
+
+    private final Limit emailLimit;
+    private final Limit ipLimit;
+
+    public LoginRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${auth.login-rate-limit.email.limit:10}") int emailAttempts,
+            @Value("${auth.login-rate-limit.email.window:5m}") Duration emailWindow,
+            @Value("${auth.login-rate-limit.ip.limit:50}") int ipAttempts,
+            @Value("${auth.login-rate-limit.ip.window:1m}") Duration ipWindow,
+            @Value("${auth.login-rate-limit.maximum-keys:100000}") long maximumKeys) {
+        this.emailLimit = new Limit("email", emailAttempts, emailWindow, maximumKeys, meterRegistry);
+        this.ipLimit = new Limit("ip", ipAttempts, ipWindow, maximumKeys, meterRegistry);
+    }
+
+    /**
+     * Counts one attempt for both keys, or throws a 429 with {@code Retry-After} if either
+     * is over its limit. A rejected attempt is not counted.
+     */
+    public void acquire(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        long retryAfterMillis = ipLimit.tryAcquire(clientIp, now);
+        if (retryAfterMillis == 0 && email != null) {
+            retryAfterMillis = emailLimit.tryAcquire(email.toLowerCase(Locale.ROOT), now);
+        }
+        if (retryAfterMillis > 0) {
+            throw new TooManyAttemptsException(Math.max(1, (retryAfterMillis + 999) / 1000));
+        }
+    }
+
+    private static final class Limit {
+        private final int attempts;
+        private final long windowMillis;
+        private final Cache<String, AtomicLong> windows;
+        private final Counter rejections;
+
+        Limit(String key, int attempts, Duration window, long maximumKeys, MeterRegistry meterRegistry) {
+            this.attempts = Math.min(attempts, (int) COUNT_MASK);
+            this.windowMillis = window.toMillis();
+            // Two windows after the last attempt a key's state is all zeros anyway
+            this.windows = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(window.multipliedBy(2))
+                .recordStats()
+                .build();
+            this.rejections = Counter.builder("auth.login.rate_limited")
+                .description("Login attempts rejected before authentication")
+                .tag("key", key)
+                .register(meterRegistry);
+            CaffeineCacheMetrics.monitor(meterRegistry, windows, "auth.login.rate-limit." + key);
+        }
+
+        // 0 if the attempt was counted, otherwise the millis until the next one may pass
+        long tryAcquire(String key, long now) {
+            AtomicLong state = windows.get(key, k -> new AtomicLong());
+            int window = (int) (now / windowMillis);
+            while (true) {
+                long packed = state.get();
+                int storedWindow = (int) (packed >>> 32);
+                long previous = (packed >>> 16) & COUNT_MASK;
+                long current = packed & COUNT_MASK;
+                if (window != storedWindow) {
+                    previous = window - storedWindow == 1 ? current : 0;
+                    current = 0;
+                }
+                long elapsed = now - (long) window * windowMillis;
+                double estimate = previous * (1 - (double) elapsed / windowMillis) + current;
+                if (estimate + 1 > attempts) {
+                    rejections.increment();
+                    return retryAfter(previous, current, elapsed);
+                }
+                long updated = ((long) window << 32) | (previous << 16) | (current + 1);
+                if (state.compareAndSet(packed, updated)) {
+                    return 0;
+                }
+            }
+        }
+
+        // Time until the weighted estimate has decayed enough to admit one more attempt
+        private long retryAfter(long previous, long current, long elapsed) {
+            long free = attempts - 1;
+            if (current <= free) {
+                // previous * (1 - t / window) + current <= free, solved for t
+                long at = (long) Math.ceil(windowMillis * (1 - (double) (free - current) / previous));
+                return Math.max(1, at - elapsed);
+            }
+            // The current count alone is too high; it becomes the previous window's count
+            long untilNextWindow = windowMillis - elapsed;
+            return untilNextWindow + (long) Math.ceil(windowMillis * (1 - (double) free / current));
+        }
+    }
+
+    static final class TooManyAttemptsException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        TooManyAttemptsException(long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
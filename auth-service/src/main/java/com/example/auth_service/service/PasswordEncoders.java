@@ -0,0 +1,33 @@
+package com.example.auth_service.service;
+
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+public final class PasswordEncoders {
+    private static final String BCRYPT_ID = "bcrypt";
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * New hashes are stored as {@code {bcrypt}$2a$<cost>$...}, recording algorithm and cost.
+     * Hashes written before ids were recorded are plain BCrypt; they keep matching and are
+     * only re-hashed when their cost differs from {@code bcryptStrength}.
+     */
+    public static PasswordEncoder delegating(int bcryptStrength) {
+        TunableBCryptPasswordEncoder bcrypt = new TunableBCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt)) {
+            @Override
+            public boolean upgradeEncoding(String prefixEncodedPassword) {
+                if (prefixEncodedPassword != null && !prefixEncodedPassword.startsWith("{")) {
+                    return bcrypt.upgradeEncoding(prefixEncodedPassword);
+                }
+                return super.upgradeEncoding(prefixEncodedPassword);
+            }
+        };
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.Department;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.repository.DepartmentRepository;
+import com.example.auth_service.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Roles and departments held in memory. Both tables are tiny and change rarely, so lookups
+ * by id or name are answered from an immutable snapshot without touching the database.
+ * The snapshot is replaced wholesale on every change made through this instance and
+ * reloaded periodically to pick up changes made elsewhere. An id that is not in the
+ * snapshot is looked up once in the database before it is reported missing. A reload
+ * queries without blocking those changes; they are replayed onto the reloaded snapshot.
+ *
+ * <p>Callers get detached copies without the {@code users} collection, so they can be put
+ * into associations or serialized but never trigger lazy loading.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+    private final RoleRepository roleRepository;
+    private final DepartmentRepository departmentRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // Guards replacing the snapshot; never held during a query
+    private final Object snapshotLock = new Object();
+    // Departments saved (present) or deleted (empty) while a refresh is querying
+    private Map<Long, Optional<Department>> pendingChanges;
+    private final ReentrantLock refreshing = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.reference-cache.refresh-interval:5m}",
+               initialDelayString = "${auth.reference-cache.refresh-interval:5m}")
+    public void refresh() {
+        refreshing.lock();
+        try {
+            synchronized (snapshotLock) {
+                pendingChanges = new HashMap<>();
+            }
+            List<Role> roles = roleRepository.findAll();
+            List<Department> departments = departmentRepository.findAll();
+            synchronized (snapshotLock) {
+                Snapshot loaded = Snapshot.of(roles, departments);
+                Map<Long, Department> byId = new HashMap<>(loaded.departmentsById);
+                pendingChanges.forEach((id, department) -> {
+                    if (department.isPresent()) {
+                        byId.put(id, department.get());
+                    } else {
+                        byId.remove(id);
+                    }
+                });
+                snapshot = new Snapshot(loaded.roles, byId);
+                pendingChanges = null;
+            }
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    public Optional<Role> role(Role.RoleType name) {
+        Role role = snapshot.roles.get(name);
+        if (role == null) {
+            Optional<Role> loaded = roleRepository.findByName(name);
+            loaded.ifPresent(found -> refresh());
+            return loaded;
+        }
+        return Optional.of(role);
+    }
+
+    public Optional<Department> department(Long id) {
+        Department department = snapshot.departmentsById.get(id);
+        if (department == null) {
+            Optional<Department> loaded = departmentRepository.findById(id);
+            loaded.ifPresent(this::departmentSaved);
+            return loaded.map(ReferenceDataCache::copy);
+        }
+        return Optional.of(copy(department));
+    }
+
+    // Same contract as findAllById: ids that do not exist are skipped
+    public List<Department> departments(Collection<Long> ids) {
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Department> departments = new ArrayList<>(ids.size());
+        for (Long id : new HashSet<>(ids)) {
+            department(id).ifPresent(departments::add);
+        }
+        return departments;
+    }
+
+    public boolean departmentExists(String name) {
+        return snapshot.departmentsByName.containsKey(name);
+    }
+
+    public void departmentSaved(Department department) {
+        Department copy = copy(department);
+        synchronized (snapshotLock) {
+            Map<Long, Department> byId = new HashMap<>(snapshot.departmentsById);
+            byId.put(copy.getId(), copy);
+            snapshot = new Snapshot(snapshot.roles, byId);
+            if (pendingChanges != null) {
+                pendingChanges.put(copy.getId(), Optional.of(copy));
+            }
+        }
+    }
+
+    public void departmentDeleted(Long id) {
+        synchronized (snapshotLock) {
+            Map<Long, Department> byId = new HashMap<>(snapshot.departmentsById);
+            byId.remove(id);
+            snapshot = new Snapshot(snapshot.roles, byId);
+            if (pendingChanges != null) {
+                pendingChanges.put(id, Optional.empty());
+            }
+        }
+    }
+
+    private static Department copy(Department department) {
+        return Department.builder()
+            .id(department.getId())
+            .name(department.getName())
+            .users(new HashSet<>())
+            .build();
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of());
+
+        final Map<Role.RoleType, Role> roles;
+        final Map<Long, Department> departmentsById;
+        final Map<String, Department> departmentsByName;
+
+        Snapshot(Map<Role.RoleType, Role> roles, Map<Long, Department> departmentsById) {
+            this.roles = roles;
+            this.departmentsById = Map.copyOf(departmentsById);
+            Map<String, Department> byName = new HashMap<>();
+            departmentsById.values().forEach(department -> byName.put(department.getName(), department));
+            this.departmentsByName = Map.copyOf(byName);
+        }
+
+        static Snapshot of(List<Role> roles, List<Department> departments) {
+            Map<Role.RoleType, Role> roleMap = new EnumMap<>(Role.RoleType.class);
+            roles.forEach(role -> roleMap.put(role.getName(), role));
+            Map<Long, Department> byId = new HashMap<>();
+            departments.forEach(department -> byId.put(department.getId(), copy(department)));
+            return new Snapshot(roleMap, byId);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.RefreshToken;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.RefreshTokenRepository;
+import com.example.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. A refresh is one indexed lookup by the token's
+ * SHA-256 and a conditional update, with no password hashing involved, which lets access
+ * tokens be short-lived without sending clients back through a BCrypt login.
+ *
+ * <p>Presenting a token that was already exchanged, or whose user has since had their
+ * token version bumped, revokes every token of its family: either the client or an
+ * attacker holds a stolen copy, and neither can tell which.
+ */
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final CustomUserDetailsService userDetailsService;
+    private final TransactionTemplate transactionTemplate;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration ttl;
+    private final int cleanupBatchSize;
+    private final Counter reuseDetected;
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
+            TokenVersionRegistry tokenVersionRegistry,
+            CustomUserDetailsService userDetailsService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${auth.refresh-token.ttl:14d}") Duration ttl,
+            @Value("${auth.refresh-token.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userDetailsService = userDetailsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.cleanupBatchSize = cleanupBatchSize;
+        this.reuseDetected = Counter.builder("auth.refresh_tokens.reuse_detected")
+            .description("Refresh token families revoked because a token was presented twice")
+            .register(meterRegistry);
+    }
+
+    // Starts a new family, e.g. after a password login
+    @Transactional
+    public String issue(String email) {
+        Long userId = userRepository.findIdByEmail(email)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unknown user"));
+        return issue(userRepository.getReferenceById(userId), tokenVersionRegistry.currentVersion(email),
+            UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for its successor. Rejections after a detected reuse must
+     * keep the family revocation, hence no rollback for {@link ResponseStatusException}.
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotation rotate(String token) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(token))
+            .orElseThrow(RefreshTokenService::invalid);
+        Instant now = Instant.now();
+        if (current.isRevoked()) {
+            throw invalid();
+        }
+        if (current.getUsedAt() != null) {
+            throw reuseDetected(current);
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw invalid();
+        }
+        User user = current.getUser();
+        if (!tokenVersionRegistry.isCurrent(user.getEmail(), current.getTokenVersion())) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw invalid();
+        }
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            // A concurrent refresh with the same token got there first
+            throw reuseDetected(current);
+        }
+        String next = issue(user, current.getTokenVersion(), current.getFamilyId());
+        return new Rotation(userDetailsService.loadUserByUsername(user.getEmail()), next);
+    }
+
+    // Logout: the token's family ends, whether or not the token was already used
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+            .ifPresent(current -> refreshTokenRepository.revokeFamily(current.getFamilyId()));
+    }
+
+    /**
+     * Deletes expired tokens in small batches, each in its own transaction, so the job
+     * never holds many row locks or one long transaction. Tokens are kept until they expire,
+     * not when used, because reuse detection needs the consumed ones.
+     */
+    @Scheduled(fixedDelayString = "${auth.refresh-token.cleanup-interval:1h}",
+               initialDelayString = "${auth.refresh-token.cleanup-interval:1h}")
+    public int purgeExpired() {
+        Instant cutoff = Instant.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                refreshTokenRepository.deleteExpired(cutoff, cleanupBatchSize));
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+        return total;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    private String issue(User user, int tokenVersion, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+            .tokenHash(hash(token))
+            .familyId(familyId)
+            .user(user)
+            .tokenVersion(tokenVersion)
+            .expiresAt(Instant.now().plus(ttl))
+            .build());
+        return token;
+    }
+
+    private ResponseStatusException reuseDetected(RefreshToken token) {
+        refreshTokenRepository.revokeFamily(token.getFamilyId());
+        reuseDetected.increment();
+        return invalid();
+    }
+
+    // The token carries 256 random bits, so an unsalted fast hash is enough
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+    }
+
+    public record Rotation(UserDetails userDetails, String refreshToken) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.model.RevokedToken;
+import com.example.auth_service.repository.RefreshTokenRepository;
+import com.example.auth_service.repository.RevokedTokenRepository;
+import com.example.auth_service.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revocation of access tokens before their expiry, at two granularities: single tokens by
+ * {@code jti} (logout) and all tokens of a user issued up to a watermark (sign out
+ * everywhere).
+ *
+ * <p>Revoked jtis are kept in {@code revoked_tokens} and mirrored into a {@link BloomFilter}.
+ * The filter answers "definitely not revoked" for nearly every request, so only the rare
+ * positive, a revoked token or a false positive, costs an indexed lookup. Other instances'
+ * revocations are added incrementally by seeking past the ids seen. Ids are assigned before
+ * commit, so a row can become visible after a higher id was already read; each refresh
+ * therefore re-reads every id above the highest one seen a re-read window ago. A periodic
+ * full rebuild drops expired entries, which a Bloom filter cannot remove.
+ *
+ * <p>Refreshes and rebuilds query without holding anything a request or a logout waits on:
+ * they are serialized by their own lock, and a rebuild only locks the filter to swap in the
+ * new one together with the jtis revoked here while it was being built.
+ */
+@Service
+public class TokenRevocationService {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final int cleanupBatchSize;
+    private final Duration rereadWindow;
+    private final Counter filtered;
+    private final Counter falsePositives;
+    private final Counter revoked;
+
+    private volatile BloomFilter filter;
+    // Guards the swap of filter against add(); never held during I/O
+    private final Object filterLock = new Object();
+    // Jtis revoked here while a rebuild is running, replayed into the rebuilt filter
+    private List<String> pendingAdds;
+    // Serializes refresh() and rebuild(), which share the re-read bookkeeping below
+    private final ReentrantLock maintenance = new ReentrantLock();
+    // Ids up to here are committed or abandoned; everything above is read again
+    private long rereadFloor;
+    // Highest id read by each refresh, oldest first, until it falls out of the re-read window
+    private final Deque<SeenId> seenIds = new ArrayDeque<>();
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
+            TokenVersionRegistry tokenVersionRegistry,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${auth.revocation.expected-entries:100000}") long expectedEntries,
+            @Value("${auth.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${auth.revocation.cleanup-batch-size:1000}") int cleanupBatchSize,
+            @Value("${auth.revocation.reread-window:1m}") Duration rereadWindow) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.cleanupBatchSize = cleanupBatchSize;
+        this.rereadWindow = rereadWindow;
+        this.filter = BloomFilter.create(expectedEntries, falsePositiveRate);
+        this.filtered = checks(meterRegistry, "filtered");
+        this.falsePositives = checks(meterRegistry, "false_positive");
+        this.revoked = checks(meterRegistry, "revoked");
+    }
+
+    public boolean isRevoked(Claims claims) {
+        if (tokenVersionRegistry.isBeforeWatermark(claims.getSubject(), claims.getIssuedAt())) {
+            return true;
+        }
+        String jti = claims.getId();
+        // Tokens issued before jtis were introduced can only be revoked by the watermark
+        if (jti == null || !filter.mightContain(jti)) {
+            filtered.increment();
+            return false;
+        }
+        if (revokedTokenRepository.existsByJti(jti)) {
+            revoked.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    @Transactional
+    public void revoke(Claims claims) {
+        if (claims.getId() == null || revokedTokenRepository.existsByJti(claims.getId())) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+            .jti(claims.getId())
+            .expiresAt(claims.getExpiration().toInstant())
+            .build());
+        String jti = claims.getId();
+        // Effective here once committed; other instances see it on their next refresh
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(jti);
+            }
+        });
+    }
+
+    /**
+     * Ends every session of the user: access tokens issued so far fail the watermark check
+     * and all refresh token families are revoked.
+     */
+    @Transactional
+    public void revokeAll(Long userId, String email) {
+        userRepository.updateTokensValidAfter(userId, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        refreshTokenRepository.revokeAllForUser(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, email));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval:10s}",
+               initialDelayString = "${auth.revocation.refresh-interval:10s}")
+    public void refresh() {
+        maintenance.lock();
+        try {
+            refreshLocked();
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private void refreshLocked() {
+        Instant now = Instant.now();
+        while (!seenIds.isEmpty() && !seenIds.peekFirst().at().isAfter(now.minus(rereadWindow))) {
+            rereadFloor = Math.max(rereadFloor, seenIds.removeFirst().id());
+        }
+        BloomFilter current = filter;
+        List<String> jtis = new ArrayList<>();
+        long[] maxId = {rereadFloor};
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+            "SELECT id, jti FROM revoked_tokens WHERE id > ? ORDER BY id",
+            rs -> {
+                maxId[0] = rs.getLong(1);
+                jtis.add(rs.getString(2));
+            },
+            rereadFloor));
+        // Adding a jti twice is harmless; rebuild() cannot swap the filter meanwhile
+        jtis.forEach(current::add);
+        seenIds.addLast(new SeenId(now, maxId[0]));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.revocation.rebuild-interval:15m}",
+               initialDelayString = "${auth.revocation.rebuild-interval:15m}")
+    public void rebuild() {
+        maintenance.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        synchronized (filterLock) {
+            pendingAdds = new ArrayList<>();
+        }
+        Instant now = Instant.now();
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                revokedTokenRepository.deleteExpired(now, cleanupBatchSize));
+        } while (deleted == cleanupBatchSize);
+
+        List<String> jtis = new ArrayList<>();
+        long[] maxId = {0};
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+            "SELECT id, jti FROM revoked_tokens WHERE expires_at >= ?",
+            rs -> {
+                maxId[0] = Math.max(maxId[0], rs.getLong(1));
+                jtis.add(rs.getString(2));
+            },
+            Timestamp.from(now)));
+        // Leave headroom so the false positive rate holds until the next rebuild
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedEntries, 2L * jtis.size()), falsePositiveRate);
+        jtis.forEach(rebuilt::add);
+        synchronized (filterLock) {
+            pendingAdds.forEach(rebuilt::add);
+            filter = rebuilt;
+            pendingAdds = null;
+        }
+        // Held back like a refresh: a row below maxId may not have been visible to the scan
+        seenIds.addLast(new SeenId(now, maxId[0]));
+    }
+
+    // Committed before a rebuild's scan starts, the jti is in the rows it reads; otherwise it is
+    // replayed into the rebuilt filter
+    private void add(String jti) {
+        synchronized (filterLock) {
+            filter.add(jti);
+            if (pendingAdds != null) {
+                pendingAdds.add(jti);
+            }
+        }
+    }
+
+    private record SeenId(Instant at, long id) {
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.revocation.checks")
+            .description("Access token revocation checks by outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of {@code users.token_version} and {@code users.tokens_valid_after}. A
+ * token is only accepted while the version signed into it matches the user's current
+ * version and it was issued after the user's watermark, which lets the JWT filter reject
+ * tokens of deleted, changed or signed-out users without a database round trip.
+ *
+ * <p>Changes made through this instance take effect at once. Changes made through other
+ * instances (a logout-all, a session revocation, a password reset) are only seen once the
+ * entry expires, so the TTL bounds how long another node keeps accepting such tokens.
+ */
+@Service
+public class TokenVersionRegistry {
+    private static final TokenState UNKNOWN = new TokenState(0, Long.MIN_VALUE);
+
+    private final UserRepository userRepository;
+    private final Cache<String, TokenState> states;
+    // Bumped by every invalidation; a load that overlaps one is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TokenVersionRegistry(
+            UserRepository userRepository,
+            @Value("${auth.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${auth.token-version.ttl:10s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.states = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    public int currentVersion(String email) {
+        return lookup(email).orElse(UNKNOWN).version();
+    }
+
+    public boolean isCurrent(String email, int tokenVersion) {
+        return lookup(email).map(state -> state.version() == tokenVersion).orElse(false);
+    }
+
+    /**
+     * True if the token was issued at or before the user's watermark. {@code iat} only has
+     * second precision, so a token issued in the same second as the watermark is rejected
+     * too.
+     */
+    public boolean isBeforeWatermark(String email, Date issuedAt) {
+        long validAfter = lookup(email).orElse(UNKNOWN).validAfterEpochSecond();
+        if (validAfter == Long.MIN_VALUE) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() / 1000 <= validAfter;
+    }
+
+    /**
+     * Drops the cached state so the next check reloads it. Runs after commit, otherwise
+     * a concurrent reload could cache the pre-change value.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidations.incrementAndGet();
+        states.invalidate(event.email());
+    }
+
+    private Optional<TokenState> lookup(String email) {
+        // Not get(key, loader), which would hold a bin lock during the query
+        TokenState state = states.getIfPresent(email);
+        if (state != null) {
+            return Optional.of(state);
+        }
+        long invalidated = invalidations.get();
+        Optional<TokenState> loaded = userRepository.findTokenStateByEmail(email).map(TokenState::of);
+        loaded.ifPresent(value -> {
+            states.asMap().putIfAbsent(email, value);
+            // An invalidation since the query may be for a change the query did not see.
+            // Checked after the put, so an invalidation either sees the entry or is seen here.
+            if (invalidations.get() != invalidated) {
+                states.asMap().remove(email, value);
+            }
+        });
+        return loaded;
+    }
+
+    // Long.MIN_VALUE: no watermark set
+    private record TokenState(int version, long validAfterEpochSecond) {
+        static TokenState of(UserRepository.TokenVersionView view) {
+            Instant validAfter = view.getTokensValidAfter();
+            return new TokenState(view.getTokenVersion(),
+                validAfter != null ? validAfter.getEpochSecond() : Long.MIN_VALUE);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.auth_service.service;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that asks for a re-hash whenever the stored cost differs from the
+ * configured one, in either direction. The stock encoder only upgrades weaker hashes,
+ * which makes lowering the cost impossible without a mass reset.
+ */
+public class TunableBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+
+    public TunableBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Encoded password does not look like BCrypt: " + encodedPassword);
+        }
+        return Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.SignupRequest;
+import com.example.auth_service.dto.UserImportStatusDTO;
+import com.example.auth_service.dto.UserImportStatusDTO.RowError;
+import com.example.auth_service.dto.UserImportStatusDTO.State;
+import com.example.auth_service.model.ChangeEvent;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.service.ChangeOutbox.Change;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk user provisioning for migrations. The upload is spooled to a temporary file and
+ * processed in the background, one import at a time, in batches:
+ * <ol>
+ *   <li>rows are parsed one by one (CSV with a header row, or newline-delimited JSON, both
+ *       in the shape of {@link SignupRequest}) and validated against the roles and
+ *       departments loaded when the job starts;</li>
+ *   <li>emails are deduplicated within the batch and against the database with one query;</li>
+ *   <li>passwords are hashed in parallel on a dedicated pool;</li>
+ *   <li>users and their department rows are written with JDBC batch inserts in one
+ *       transaction per batch. {@code users.id} stays an IDENTITY column, which rules out
+ *       Hibernate insert batching but not plain JDBC batching; the new ids are read back
+ *       by email for the join rows and the change feed events, written in the same
+ *       transaction.</li>
+ * </ol>
+ * A batch that fails to insert (e.g. an email created concurrently) is rolled back and its
+ * rows are reported as failed; earlier batches stay committed. No tokens are issued.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+    private static final String INSERT_USER =
+        "INSERT INTO users (name, email, password, position, role_id, address, phone, status, token_version) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, 'inactive', 0)";
+    private static final String INSERT_USER_DEPARTMENT =
+        "INSERT INTO user_departments (user_id, department_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final DepartmentMembershipIndex membershipIndex;
+    private final ChangeOutbox changeOutbox;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService hashingExecutor;
+    private final Cache<String, ImportJob> jobs;
+    private final int batchSize;
+    private final int maxErrors;
+    private final ObjectReader csvReader;
+    private final ObjectReader ndjsonReader;
+
+    public UserImportService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            DepartmentMembershipIndex membershipIndex,
+            ChangeOutbox changeOutbox,
+            @Value("${auth.password.bcrypt.strength:12}") int bcryptStrength,
+            @Value("${auth.user-import.batch-size:500}") int batchSize,
+            @Value("${auth.user-import.hashing-threads:0}") int hashingThreads,
+            @Value("${auth.user-import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Not the request-path encoder bean: its small bounded queue is sized for logins
+        this.passwordEncoder = PasswordEncoders.delegating(bcryptStrength);
+        this.membershipIndex = membershipIndex;
+        this.changeOutbox = changeOutbox;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "user-import"));
+        this.hashingExecutor = Executors.newFixedThreadPool(
+            hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors(),
+            runnable -> daemon(runnable, "user-import-hashing-" + threadCount.incrementAndGet()));
+        this.jobs = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        // departmentIds as "1;4;7" inside a single cell
+        this.csvReader = csvMapper.readerFor(SignupRequest.class)
+            .with(CsvSchema.emptySchema().withHeader().withArrayElementSeparator(";"));
+        this.ndjsonReader = objectMapper.readerFor(SignupRequest.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Copies the upload to a temporary file, so the request does not have to stay open
+     * for the whole import, and queues the job.
+     */
+    public UserImportStatusDTO start(InputStream body, Format format) throws IOException {
+        Path spooled = Files.createTempFile("user-import-", format == Format.CSV ? ".csv" : ".ndjson");
+        try {
+            Files.copy(body, spooled, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        jobExecutor.execute(() -> {
+            try {
+                run(job, spooled, format);
+            } finally {
+                try {
+                    Files.deleteIfExists(spooled);
+                } catch (IOException ignored) {
+                    // Temp directory cleanup will take care of it
+                }
+            }
+        });
+        return job.toStatus();
+    }
+
+    public Optional<UserImportStatusDTO> status(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(ImportJob::toStatus);
+    }
+
+    private void run(ImportJob job, Path spooled, Format format) {
+        job.startedAt = Instant.now();
+        job.state = State.RUNNING;
+        try (BufferedReader reader = Files.newBufferedReader(spooled, StandardCharsets.UTF_8)) {
+            Batcher batcher = new Batcher(job, loadRoleIds(), loadDepartmentIds());
+            if (format == Format.CSV) {
+                readCsv(reader, batcher);
+            } else {
+                readNdjson(reader, batcher);
+            }
+            batcher.flush();
+            job.state = State.COMPLETED;
+        } catch (Exception e) {
+            job.failure = e.getMessage();
+            job.state = State.FAILED;
+        } finally {
+            // Rows were written without per-user events; pick up their departments in one pass
+            if (job.imported.get() > 0) {
+                membershipIndex.rebuild();
+            }
+            job.finishedAt = Instant.now();
+        }
+    }
+
+    private void readCsv(Reader reader, Batcher batcher) throws IOException {
+        try (MappingIterator<SignupRequest> rows = csvReader.readValues(reader)) {
+            long rowNumber = 0;
+            while (rows.hasNextValue()) {
+                rowNumber++;
+                SignupRequest row;
+                try {
+                    row = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    batcher.reject(rowNumber, null, "Unreadable row: " + e.getOriginalMessage());
+                    continue;
+                }
+                batcher.accept(rowNumber, row);
+            }
+        }
+    }
+
+    // Each line is parsed on its own, so a malformed line does not end the import
+    private void readNdjson(BufferedReader reader, Batcher batcher) throws IOException {
+        long rowNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            SignupRequest row;
+            try {
+                row = ndjsonReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                batcher.reject(rowNumber, null, "Unreadable row: " + e.getOriginalMessage());
+                continue;
+            }
+            batcher.accept(rowNumber, row);
+        }
+    }
+
+    private void importBatch(ImportJob job, List<PendingUser> batch) {
+        // Duplicates within the batch, then against users committed before (including earlier batches)
+        Map<String, PendingUser> byEmail = new LinkedHashMap<>();
+        for (PendingUser user : batch) {
+            if (byEmail.putIfAbsent(user.email(), user) != null) {
+                job.duplicate(user.row(), user.email(), "Duplicate email in file");
+            }
+        }
+        Set<String> existing = existingEmails(byEmail.keySet());
+        List<PendingUser> toInsert = new ArrayList<>(byEmail.size());
+        for (PendingUser user : byEmail.values()) {
+            if (existing.contains(user.email())) {
+                job.duplicate(user.row(), user.email(), "Email already in use");
+            } else {
+                toInsert.add(user);
+            }
+        }
+
+        // Hash outside the transaction so no connection is held while BCrypt runs
+        List<CompletableFuture<String>> hashes = toInsert.stream()
+            .map(user -> CompletableFuture.supplyAsync(
+                () -> passwordEncoder.encode(user.request().getPassword()), hashingExecutor))
+            .toList();
+        List<String> encoded = hashes.stream().map(CompletableFuture::join).toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(toInsert, encoded));
+            job.imported.addAndGet(toInsert.size());
+        } catch (RuntimeException e) {
+            String message = "Batch insert failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            toInsert.forEach(user -> job.fail(user.row(), user.email(), message));
+        }
+        job.processed.addAndGet(batch.size());
+    }
+
+    private void insert(List<PendingUser> users, List<String> encodedPasswords) {
+        jdbcTemplate.batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingUser user = users.get(i);
+                SignupRequest request = user.request();
+                ps.setString(1, request.getName());
+                ps.setString(2, user.email());
+                ps.setString(3, encodedPasswords.get(i));
+                ps.setString(4, request.getPosition());
+                ps.setLong(5, user.roleId());
+                ps.setString(6, request.getAddress());
+                ps.setString(7, request.getPhone());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+
+        // Every new id goes into the change feed, so read them all back, not only for the join rows
+        Map<String, Long> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+            "SELECT id, email FROM users WHERE email IN (:emails)",
+            Map.of("emails", users.stream().map(PendingUser::email).toList()),
+            rs -> {
+                ids.put(rs.getString(2), rs.getLong(1));
+            });
+        List<long[]> joinRows = new ArrayList<>();
+        List<Change> changes = new ArrayList<>();
+        for (PendingUser user : users) {
+            long userId = ids.get(user.email());
+            SignupRequest request = user.request();
+            changes.add(new Change(ChangeEvent.Type.USER_CREATED, userId, new ChangeOutbox.UserState(
+                userId, user.email(), request.getName(), request.getPosition(),
+                Role.RoleType.valueOf(request.getRole().trim()), "inactive")));
+            if (request.getDepartmentIds() != null) {
+                new HashSet<>(request.getDepartmentIds()).forEach(departmentId -> {
+                    joinRows.add(new long[] {userId, departmentId});
+                    changes.add(Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, userId, departmentId));
+                });
+            }
+        }
+        if (!joinRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_USER_DEPARTMENT, joinRows, joinRows.size(), (ps, pair) -> {
+                ps.setLong(1, pair[0]);
+                ps.setLong(2, pair[1]);
+            });
+        }
+        changeOutbox.record(changes);
+    }
+
+    // Not read-only: with a replica configured those transactions could miss the batches
+    // this job has just committed, or departments created moments before the upload
+    private Set<String> existingEmails(Set<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return transactionTemplate.execute(status -> new HashSet<>(namedParameterJdbcTemplate.queryForList(
+            "SELECT email FROM users WHERE email IN (:emails)", Map.of("emails", emails), String.class)));
+    }
+
+    private Map<Role.RoleType, Long> loadRoleIds() {
+        Map<Role.RoleType, Long> roleIds = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+            "SELECT id, name FROM role",
+            rs -> {
+                roleIds.put(Role.RoleType.valueOf(rs.getString(2)), rs.getLong(1));
+            }));
+        return roleIds;
+    }
+
+    private Set<Long> loadDepartmentIds() {
+        return transactionTemplate.execute(status ->
+            new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM department", Long.class)));
+    }
+
+    private static String validate(SignupRequest row, Map<Role.RoleType, Long> roleIds, Set<Long> departmentIds) {
+        if (isBlank(row.getEmail()) || isBlank(row.getName()) || isBlank(row.getPassword()) || isBlank(row.getPosition())) {
+            return "name, email, password and position are required";
+        }
+        Role.RoleType role;
+        try {
+            role = Role.RoleType.valueOf(isBlank(row.getRole()) ? "" : row.getRole().trim());
+        } catch (IllegalArgumentException e) {
+            return "Unknown role: " + row.getRole();
+        }
+        // There is exactly one SuperAdmin, created through its own signup endpoint
+        if (role == Role.RoleType.SUPERADMIN) {
+            return "SUPERADMIN users cannot be imported";
+        }
+        if (!roleIds.containsKey(role)) {
+            return "Role not found: " + role;
+        }
+        if (row.getDepartmentIds() != null) {
+            for (Long departmentId : row.getDepartmentIds()) {
+                if (departmentId == null || !departmentIds.contains(departmentId)) {
+                    return "Department not found: " + departmentId;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void destroy() {
+        jobExecutor.shutdownNow();
+        hashingExecutor.shutdownNow();
+    }
+
+    // Validates rows and hands them to importBatch in groups of batchSize
+    private final class Batcher {
+        private final ImportJob job;
+        private final Map<Role.RoleType, Long> roleIds;
+        private final Set<Long> departmentIds;
+        private List<PendingUser> batch = new ArrayList<>(batchSize);
+
+        Batcher(ImportJob job, Map<Role.RoleType, Long> roleIds, Set<Long> departmentIds) {
+            this.job = job;
+            this.roleIds = roleIds;
+            this.departmentIds = departmentIds;
+        }
+
+        void accept(long rowNumber, SignupRequest row) {
+            String problem = validate(row, roleIds, departmentIds);
+            if (problem != null) {
+                reject(rowNumber, row.getEmail(), problem);
+                return;
+            }
+            batch.add(new PendingUser(rowNumber, row, roleIds.get(Role.RoleType.valueOf(row.getRole().trim()))));
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long rowNumber, String email, String message) {
+            job.reject(rowNumber, email, message);
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                importBatch(job, batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private record PendingUser(long row, SignupRequest request, long roleId) {
+        String email() {
+            return request.getEmail().trim();
+        }
+    }
+
+    private final class ImportJob {
+        private final String id;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<RowError> errors = new ArrayList<>();
+        private volatile State state = State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String failure;
+
+        ImportJob(String id) {
+            this.id = id;
+        }
+
+        // Row rejected before it reached a batch
+        void reject(long row, String email, String message) {
+            processed.incrementAndGet();
+            fail(row, email, message);
+        }
+
+        void fail(long row, String email, String message) {
+            failed.incrementAndGet();
+            record(row, email, message);
+        }
+
+        void duplicate(long row, String email, String message) {
+            duplicates.incrementAndGet();
+            record(row, email, message);
+        }
+
+        private synchronized void record(long row, String email, String message) {
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(row, email, message));
+            }
+        }
+
+        synchronized UserImportStatusDTO toStatus() {
+            return new UserImportStatusDTO(id, state, processed.get(), imported.get(), duplicates.get(),
+                failed.get(), List.copyOf(errors), startedAt, finishedAt, failure);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified.
+ * Entries are keyed by a SHA-256 digest of the compact token and expire
+ * together with the token itself, so a repeat request costs one hash
+ * lookup instead of a full parse and HMAC check.
+ */
+@Component
+public class VerifiedTokenCache {
+    private final Cache<String, Claims> cache;
+
+    public VerifiedTokenCache(
+            @Value("${auth.jwt.token-cache.maximum-size:10000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new UntilTokenExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+
+    /**
+     * Returns the cached claims for the token, or runs the verifier and caches its
+     * result. Verification failures propagate and are never cached.
+     */
+    public Claims getOrVerify(String token, Function<String, Claims> verifier) {
+        return cache.get(digest(token), key -> verifier.apply(token));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
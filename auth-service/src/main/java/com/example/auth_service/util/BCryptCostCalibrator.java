@@ -0,0 +1,57 @@
+package com.example.auth_service.util;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Measures BCrypt on the current machine and picks the highest cost whose median hash
+ * time stays within a target latency. Run it on the production hardware and put the
+ * result in {@code auth.password.bcrypt.strength}:
+ *
+ * <pre>
+ * java -cp auth-service.jar -Dloader.main=com.example.auth_service.util.BCryptCostCalibrator \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher 250
+ * </pre>
+ *
+ * The cost is deliberately not calibrated at startup: nodes on different hardware would
+ * pick different costs and keep re-hashing each other's passwords.
+ */
+public class BCryptCostCalibrator {
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+    private static final int SAMPLES = 5;
+
+    public static int calibrate(Duration targetLatency) {
+        int chosen = MIN_COST;
+        for (int cost = MIN_COST; cost <= MAX_COST; cost++) {
+            Duration median = medianHashTime(cost);
+            System.out.printf("cost %2d: %6d ms%n", cost, median.toMillis());
+            if (median.compareTo(targetLatency) > 0) {
+                break;
+            }
+            chosen = cost;
+        }
+        return chosen;
+    }
+
+    private static Duration medianHashTime(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        encoder.encode("warm-up");
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration-password-" + i);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[SAMPLES / 2]);
+    }
+
+    public static void main(String[] args) {
+        Duration target = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[0]) : 250);
+        int cost = calibrate(target);
+        System.out.println("Recommended auth.password.bcrypt.strength=" + cost + " (target " + target.toMillis() + " ms)");
+    }
+}
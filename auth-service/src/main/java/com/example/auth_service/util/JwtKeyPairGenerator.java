@@ -0,0 +1,47 @@
+package com.example.auth_service.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.KeyPair;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Generates a JWT signing key pair and prints it as {@code auth.jwt.signing} properties:
+ *
+ * <pre>
+ * java -cp auth-service.jar -Dloader.main=com.example.auth_service.util.JwtKeyPairGenerator \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher ES256 2025-06
+ * </pre>
+ *
+ * Supported algorithms are RS256/384/512, PS256/384/512, ES256/384/512 and EdDSA
+ * (Ed25519 keys).
+ */
+public class JwtKeyPairGenerator {
+
+    public static KeyPair generate(String algorithmId) {
+        if ("EdDSA".equals(algorithmId)) {
+            return Jwks.CRV.Ed25519.keyPair().build();
+        }
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().get(algorithmId);
+        if (!(algorithm instanceof SignatureAlgorithm signatureAlgorithm)) {
+            throw new IllegalArgumentException("Not an asymmetric JWS algorithm: " + algorithmId);
+        }
+        return signatureAlgorithm.keyPair().build();
+    }
+
+    public static void main(String[] args) {
+        String algorithm = args.length > 0 ? args[0] : "ES256";
+        String keyId = args.length > 1 ? args[1] : LocalDate.now().toString();
+        KeyPair keyPair = generate(algorithm);
+        Base64.Encoder base64 = Base64.getEncoder();
+        String prefix = "auth.jwt.signing.key-pairs." + keyId;
+        System.out.println(prefix + ".algorithm=" + algorithm);
+        System.out.println(prefix + ".private-key=" + base64.encodeToString(keyPair.getPrivate().getEncoded()));
+        System.out.println(prefix + ".public-key=" + base64.encodeToString(keyPair.getPublic().getEncoded()));
+        System.out.println("# once the key is published: auth.jwt.signing.active-key-id=" + keyId);
+    }
+}
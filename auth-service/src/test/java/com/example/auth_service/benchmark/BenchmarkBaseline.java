@@ -0,0 +1,131 @@
+package com.example.auth_service.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result with the committed baseline and fails when a benchmark
+ * allocates more per operation than the threshold allows. Benchmarks missing on either
+ * side are listed but never fail the check. Run by the {@code benchmark} profile; with
+ * {@code update=true} the result replaces the baseline instead.
+ *
+ * <p>Scores only compare on the same hardware and JVM. The update records a description
+ * of the machine next to the baseline, and a slower score fails the check only when this
+ * machine matches it; otherwise time changes are printed but never fail.
+ */
+public final class BenchmarkBaseline {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // Below this, allocation differences are JIT noise rather than a regression
+    private static final double ALLOCATION_SLACK_BYTES = 64;
+
+    private BenchmarkBaseline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path baselinePath = Path.of(args[0]);
+        Path resultPath = Path.of(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean update = Boolean.parseBoolean(args[3]);
+        Path machinePath = baselinePath.resolveSibling(
+            baselinePath.getFileName().toString().replaceFirst("\\.json$", "") + ".machine");
+        String machine = machine();
+
+        if (update || !Files.exists(baselinePath)) {
+            Files.createDirectories(baselinePath.getParent());
+            Files.copy(resultPath, baselinePath, StandardCopyOption.REPLACE_EXISTING);
+            Files.writeString(machinePath, machine + "\n", StandardCharsets.UTF_8);
+            System.out.println("Baseline written to " + baselinePath + " for " + machine);
+            return;
+        }
+
+        String recordedOn = Files.exists(machinePath) ? Files.readString(machinePath, StandardCharsets.UTF_8).trim() : null;
+        boolean compareTime = machine.equals(recordedOn);
+        if (!compareTime) {
+            System.out.println("Time changes are reported only: the baseline was recorded on "
+                + (recordedOn != null ? recordedOn : "an unrecorded machine") + ", this is " + machine);
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = byKey(mapper.readTree(baselinePath.toFile()));
+        Map<String, JsonNode> result = byKey(mapper.readTree(resultPath.toFile()));
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : result.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s new, no baseline%n", entry.getKey());
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = after.path("primaryMetric").path("score").asDouble();
+            // Throughput modes improve upwards, time modes downwards
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double change = higherIsBetter ? (oldScore - newScore) / oldScore : (newScore - oldScore) / oldScore;
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            System.out.printf("%-70s %12.3f -> %12.3f %-8s %+6.1f%%%n",
+                entry.getKey(), oldScore, newScore, unit, change * 100);
+            if (compareTime && change > threshold) {
+                regressions.add(entry.getKey() + " time " + String.format("%+.1f%%", change * 100));
+            }
+
+            double oldBytes = before.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN);
+            double newBytes = after.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN);
+            if (!Double.isNaN(oldBytes) && !Double.isNaN(newBytes)
+                    && newBytes - oldBytes > Math.max(ALLOCATION_SLACK_BYTES, oldBytes * threshold)) {
+                regressions.add(entry.getKey() + String.format(" allocation %.0f -> %.0f B/op", oldBytes, newBytes));
+            }
+        }
+        baseline.keySet().stream()
+            .filter(key -> !result.containsKey(key))
+            .forEach(key -> System.out.printf("%-70s not run%n", key));
+
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException("Benchmark regressions over " + Math.round(threshold * 100)
+                + "% against " + baselinePath + ":\n  " + String.join("\n  ", regressions));
+        }
+    }
+
+    // What scores depend on: CPU model and count, OS and JVM build
+    private static String machine() throws IOException {
+        String cpu = System.getProperty("os.arch");
+        Path cpuInfo = Path.of("/proc/cpuinfo");
+        if (Files.isReadable(cpuInfo)) {
+            cpu = Files.readAllLines(cpuInfo).stream()
+                .filter(line -> line.startsWith("model name"))
+                .map(line -> line.substring(line.indexOf(':') + 1).trim())
+                .findFirst()
+                .orElse(cpu);
+        }
+        return cpu + " x" + Runtime.getRuntime().availableProcessors()
+            + ", " + System.getProperty("os.name") + ", JDK " + System.getProperty("java.vm.version");
+    }
+
+    // "class.method [param=value, ...]" -> result entry
+    private static Map<String, JsonNode> byKey(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText()
+                .replace("com.example.auth_service.benchmark.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+            if (params.hasNext()) {
+                List<String> values = new ArrayList<>();
+                params.forEachRemaining(param -> values.add(param.getKey() + "=" + param.getValue().asText()));
+                key.append(' ').append(values);
+            }
+            byKey.put(key.toString(), run);
+        }
+        return byKey;
+    }
+}
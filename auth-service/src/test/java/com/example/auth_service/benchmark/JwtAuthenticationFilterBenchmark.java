@@ -0,0 +1,133 @@
+package com.example.auth_service.benchmark;
+
+import com.example.auth_service.config.JwtAuthenticationFilter;
+import com.example.auth_service.config.JwtKeyProperties;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.RefreshTokenRepository;
+import com.example.auth_service.repository.RevokedTokenRepository;
+import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.CustomUserDetailsService;
+import com.example.auth_service.service.JwtKeyRing;
+import com.example.auth_service.service.JwtService;
+import com.example.auth_service.service.TokenRevocationService;
+import com.example.auth_service.service.TokenVersionRegistry;
+import com.example.auth_service.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter} for a bearer token whose claims and
+ * user are already cached, which is the steady state of every authenticated request. The
+ * user store is a stub repository, so the numbers cover the filter, token, revocation and
+ * principal lookups but no database.
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Djmh.include=JwtAuthenticationFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    private static final String EMAIL = "bench@example.com";
+
+    // Principal from the token's claims (true) or from the user cache (false)
+    @Param({"false", "true"})
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenStateByEmail(Mockito.anyString()))
+            .thenReturn(Optional.of(Mockito.mock(UserRepository.TokenVersionView.class)));
+        Mockito.when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user()));
+        TokenVersionRegistry tokenVersions = new TokenVersionRegistry(userRepository, 10_000, Duration.ofSeconds(10));
+
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10_000, meterRegistry);
+        JwtKeyRing keyRing = new JwtKeyRing(new JwtKeyProperties(null, null, null, true), tokenCache);
+        JwtService jwtService = new JwtService(tokenCache, tokenVersions, keyRing, meterRegistry, Duration.ofMinutes(15));
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(
+            userRepository, meterRegistry, 10_000, Duration.ofMinutes(5));
+        // Only isRevoked runs per request; the repositories behind it are never reached
+        TokenRevocationService revocation = new TokenRevocationService(
+            Mockito.mock(RevokedTokenRepository.class),
+            Mockito.mock(RefreshTokenRepository.class),
+            userRepository,
+            tokenVersions,
+            Mockito.mock(JdbcTemplate.class),
+            Mockito.mock(PlatformTransactionManager.class),
+            Mockito.mock(ApplicationEventPublisher.class),
+            meterRegistry,
+            100_000, 0.001, 1000, Duration.ofMinutes(1));
+
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenVersions, revocation, meterRegistry);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", statelessPrincipal);
+
+        String token = jwtService.generateToken(userDetailsService.loadUserByUsername(EMAIL));
+        request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static User user() {
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        return User.builder()
+            .id(1L)
+            .name("Bench")
+            .email(EMAIL)
+            .password("{noop}unused")
+            .position("Engineer")
+            .role(role)
+            .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.auth_service.benchmark;
+
+import com.example.auth_service.config.JwtKeyProperties;
+import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.JwtKeyRing;
+import com.example.auth_service.service.JwtService;
+import com.example.auth_service.service.TokenVersionRegistry;
+import com.example.auth_service.service.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generate/verify cost of {@link JwtService} next to the previous implementation,
+ * which derived the HMAC key and built a parser on every call, plus the per-request
+ * {@code extractUsername}/{@code isTokenValid} calls. Run with the GC profiler to compare
+ * allocations per operation:
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Djmh.include=JwtServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String LEGACY_SECRET = "AZERTYUIOPQSDFGHJKLMWXCVBN12345678900987654321NBVCXWMLKJHGFDSQPOIUYTREZA";
+
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private VerifiedTokenCache uncachedTokens;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenStateByEmail(Mockito.anyString()))
+            .thenReturn(Optional.of(Mockito.mock(UserRepository.TokenVersionView.class)));
+        TokenVersionRegistry tokenVersions = new TokenVersionRegistry(userRepository, 10_000, Duration.ofSeconds(10));
+
+        jwtService = newJwtService(new VerifiedTokenCache(10_000, new SimpleMeterRegistry()), tokenVersions);
+        // Emptied before every call, so each one pays for a full signature verification
+        uncachedTokens = new VerifiedTokenCache(10_000, new SimpleMeterRegistry());
+        uncachedJwtService = newJwtService(uncachedTokens, tokenVersions);
+
+        user = new User("bench@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateLegacy() {
+        return Jwts.builder()
+            .subject(user.getUsername())
+            .issuedAt(new Date(System.currentTimeMillis()))
+            .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
+            .signWith(legacyKey(), Jwts.SIG.HS256)
+            .compact();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        uncachedTokens.invalidateAll();
+        return uncachedJwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+
+    @Benchmark
+    public Claims verifyLegacy() {
+        return Jwts.parser()
+            .verifyWith(legacyKey())
+            .build()
+            .parseSignedClaims(token)
+            .getPayload();
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(LEGACY_SECRET));
+    }
+
+    private static JwtService newJwtService(VerifiedTokenCache cache, TokenVersionRegistry tokenVersions) {
+        JwtKeyRing keyRing = new JwtKeyRing(new JwtKeyProperties(null, null, null, true), cache);
+        return new JwtService(cache, tokenVersions, keyRing, new SimpleMeterRegistry(), Duration.ofMinutes(15));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtServiceBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
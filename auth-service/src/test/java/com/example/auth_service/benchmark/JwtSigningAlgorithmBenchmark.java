@@ -0,0 +1,103 @@
+package com.example.auth_service.benchmark;
+
+import com.example.auth_service.config.JwtKeyProperties;
+import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.JwtKeyRing;
+import com.example.auth_service.service.JwtService;
+import com.example.auth_service.service.TokenVersionRegistry;
+import com.example.auth_service.service.VerifiedTokenCache;
+import com.example.auth_service.util.JwtKeyPairGenerator;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign cost of {@link JwtService} per signing algorithm, and the cost of verifying such a
+ * token with a plain parser, which is what every other service pays per request when it
+ * checks our tokens against the JWK set.
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Djmh.include=JwtSigningAlgorithmBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningAlgorithmBenchmark {
+    private static final String KEY_ID = "bench";
+
+    @Param({"HS256", "RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private JwtParser verifier;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenStateByEmail(Mockito.anyString()))
+            .thenReturn(Optional.of(Mockito.mock(UserRepository.TokenVersionView.class)));
+        TokenVersionRegistry tokenVersions = new TokenVersionRegistry(userRepository, 10_000, Duration.ofSeconds(10));
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(10_000, new SimpleMeterRegistry());
+        JwtKeyRing keyRing = new JwtKeyRing(properties(algorithm), cache);
+        jwtService = new JwtService(cache, tokenVersions, keyRing, new SimpleMeterRegistry(), Duration.ofMinutes(15));
+        Key verificationKey = keyRing.verificationKey(KEY_ID);
+        verifier = Jwts.parser().keyLocator(header -> verificationKey).build();
+
+        user = new User("bench@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return verifier.parseSignedClaims(token).getPayload();
+    }
+
+    private static JwtKeyProperties properties(String algorithm) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        if ("HS256".equals(algorithm)) {
+            String secret = base64.encodeToString(Jwts.SIG.HS256.key().build().getEncoded());
+            return new JwtKeyProperties(KEY_ID, Map.of(KEY_ID, secret), null, false);
+        }
+        KeyPair keyPair = JwtKeyPairGenerator.generate(algorithm);
+        JwtKeyProperties.KeyPair pair = new JwtKeyProperties.KeyPair(algorithm,
+            base64.encodeToString(keyPair.getPrivate().getEncoded()),
+            base64.encodeToString(keyPair.getPublic().getEncoded()));
+        return new JwtKeyProperties(KEY_ID, null, Map.of(KEY_ID, pair), false);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtSigningAlgorithmBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
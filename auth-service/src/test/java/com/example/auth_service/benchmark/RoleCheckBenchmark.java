@@ -0,0 +1,64 @@
+package com.example.auth_service.benchmark;
+
+import com.example.auth_service.util.RoleUtils;
+import com.example.auth_service.util.SecurityUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RoleUtils} and {@link SecurityUtils} authority checks that controllers run on
+ * most requests, for a principal that has the checked role and one that does not (the
+ * latter scans every authority).
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Djmh.include=RoleCheckBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleCheckBenchmark {
+    @Param({"SUPERADMIN", "USER"})
+    public String role;
+
+    private UserDetails user;
+
+    @Setup
+    public void setUp() {
+        user = new User("bench@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+
+    @Benchmark
+    public boolean isSuperAdmin() {
+        return RoleUtils.isSuperAdmin(user);
+    }
+
+    @Benchmark
+    public boolean isAdmin() {
+        return RoleUtils.isAdmin(user);
+    }
+
+    @Benchmark
+    public boolean hasSuperadminRole() {
+        return SecurityUtils.hasSuperadminRole(user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(RoleCheckBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
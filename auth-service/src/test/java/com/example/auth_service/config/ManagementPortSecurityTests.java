@@ -0,0 +1,49 @@
+package com.example.auth_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A real server, since the management port is its own child context that MockMvc does not start
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "management.server.port=0"
+})
+@AutoConfigureTestDatabase
+@AutoConfigureObservability
+class ManagementPortSecurityTests {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void scrapeAndHealthNeedNoTokenOnTheManagementPort() throws Exception {
+        assertThat(status(managementPort, "/actuator/prometheus")).isEqualTo(200);
+        assertThat(status(managementPort, "/actuator/health")).isEqualTo(200);
+        assertThat(status(managementPort, "/actuator/metrics")).isEqualTo(403);
+    }
+
+    @Test
+    void theApplicationPortServesNoActuator() throws Exception {
+        assertThat(status(serverPort, "/actuator/prometheus")).isEqualTo(403);
+    }
+
+    private int status(int port, String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.auth_service.config;
+
+import com.example.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.Container;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between two Postgres servers told apart by database name. The replica gets a
+ * copy of the schema Hibernate created on the primary, but none of its rows.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.ssl=false",
+    "spring.datasource.hikari.minimum-idle=1",
+    "auth.datasource.replica.hikari.minimum-idle=1",
+    "auth.datasource.replica.read-your-writes-window=1m"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ReadWriteRoutingTests {
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16-alpine")
+        .withDatabaseName("primary_db");
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine")
+        .withDatabaseName("replica_db");
+    private static boolean schemaCopied;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        PRIMARY.start();
+        REPLICA.start();
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        registry.add("auth.datasource.replica.url", REPLICA::getJdbcUrl);
+        registry.add("auth.datasource.replica.username", REPLICA::getUsername);
+        registry.add("auth.datasource.replica.password", REPLICA::getPassword);
+    }
+
+    @BeforeEach
+    void copySchema() throws Exception {
+        if (schemaCopied) {
+            return;
+        }
+        Container.ExecResult dump = PRIMARY.execInContainer("pg_dump", "--schema-only", "--no-owner",
+            "-U", PRIMARY.getUsername(), PRIMARY.getDatabaseName());
+        assertThat(dump.getExitCode()).as(dump.getStderr()).isZero();
+        REPLICA.copyFileToContainer(Transferable.of(dump.getStdout()), "/tmp/schema.sql");
+        Container.ExecResult restore = REPLICA.execInContainer("psql", "-v", "ON_ERROR_STOP=1", "-q",
+            "-U", REPLICA.getUsername(), "-d", REPLICA.getDatabaseName(), "-f", "/tmp/schema.sql");
+        assertThat(restore.getExitCode()).as(restore.getStderr()).isZero();
+        schemaCopied = true;
+    }
+
+    @AfterEach
+    void clearPrincipal() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertThat(database(true)).isEqualTo("replica_db");
+        assertThat(database(false)).isEqualTo("primary_db");
+        assertThat(jdbcTemplate.queryForObject("SELECT current_database()", String.class)).isEqualTo("primary_db");
+    }
+
+    @Test
+    void inheritedCrudReadsUseTheReplicaAndDeclaredQueriesThePrimary() {
+        Long roleId = replicaJdbc().queryForObject(
+            "INSERT INTO role (name) VALUES ('USER') RETURNING id", Long.class);
+        Long userId = replicaJdbc().queryForObject(
+            "INSERT INTO users (name, email, password, position, role_id, status, token_version) " +
+            "VALUES ('Replica only', 'replica-only@example.com', 'x', 'Test', ?, 'active', 0) RETURNING id",
+            Long.class, roleId);
+
+        assertThat(userRepository.findById(userId)).isPresent();
+        assertThat(userRepository.findByEmail("replica-only@example.com")).isEmpty();
+    }
+
+    @Test
+    void principalReadsItsOwnWritesFromThePrimary() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer@example.com", ""));
+        assertThat(database(true)).isEqualTo("replica_db");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            jdbcTemplate.update("INSERT INTO department (name) VALUES ('Routing test')"));
+        assertThat(database(true)).isEqualTo("primary_db");
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader@example.com", ""));
+        assertThat(database(true)).isEqualTo("replica_db");
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+
+    // Writes the replica's rows directly, as a replication stream would
+    private static JdbcTemplate replicaJdbc() {
+        return new JdbcTemplate(new DriverManagerDataSource(
+            REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword()));
+    }
+}
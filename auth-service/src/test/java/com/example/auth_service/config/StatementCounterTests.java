@@ -0,0 +1,41 @@
+package com.example.auth_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCounterTests {
+    private final DataSource dataSource = (DataSource) new StatementCounter().postProcessAfterInitialization(
+        new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"), "dataSource");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void countsPlainJdbcStatementsAndABatchAsOne() {
+        jdbcTemplate.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+
+        StatementCounter.start();
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO items (id) VALUES (?)", List.of(1, 2, 3), 3,
+                (ps, id) -> ps.setInt(1, id));
+            jdbcTemplate.update("DELETE FROM items WHERE id = ?", 3);
+        });
+        Integer remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Integer.class);
+
+        assertThat(StatementCounter.stop()).isEqualTo(3);
+        assertThat(remaining).isEqualTo(2);
+    }
+
+    @Test
+    void countsNothingWithoutAnOpenCount() {
+        jdbcTemplate.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+        assertThat(StatementCounter.stop()).isZero();
+    }
+}
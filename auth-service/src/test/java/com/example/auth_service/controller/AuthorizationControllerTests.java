@@ -0,0 +1,110 @@
+package com.example.auth_service.controller;
+
+import com.example.auth_service.model.Department;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.DepartmentRepository;
+import com.example.auth_service.repository.RoleRepository;
+import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.DepartmentMembershipIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class AuthorizationControllerTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private DepartmentMembershipIndex membershipIndex;
+
+    @Test
+    void answersEachCheckFromTheCallersRoleAndMemberships() throws Exception {
+        Department own = departmentRepository.save(Department.builder().name("Own-" + UUID.randomUUID()).build());
+        Department other = departmentRepository.save(Department.builder().name("Other-" + UUID.randomUUID()).build());
+        String email = saveUser(Role.RoleType.ADMIN, own);
+        membershipIndex.rebuild();
+
+        String checks = """
+            {"checks": [
+              {"action": "READ", "departmentId": %1$d},
+              {"action": "READ", "departmentId": %2$d},
+              {"action": "DELETE", "departmentId": %1$d},
+              {"action": "ASSIGN_MEMBERS", "departmentId": %2$d, "targetRole": "USER"},
+              {"action": "ASSIGN_MEMBERS", "departmentId": %1$d, "targetRole": "ADMIN"},
+              {"action": "ASSIGN_MEMBERS", "departmentId": %1$d},
+              {"action": "MANAGE_DEPARTMENT", "departmentId": %1$d}
+            ]}
+            """.formatted(own.getId(), other.getId());
+        JsonNode result = objectMapper.readTree(mockMvc.perform(post("/api/authz/check")
+                .with(user(new org.springframework.security.core.userdetails.User(
+                    email, "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(checks))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString());
+
+        assertThat(result.get("principal").asText()).isEqualTo(email);
+        assertThat(result.get("checked").asInt()).isEqualTo(7);
+        assertThat(result.get("allowed").asInt()).isEqualTo(3);
+        BitSet decisions = BitSet.valueOf(Base64.getDecoder().decode(result.get("decisions").asText()));
+        assertThat(decisions.stream().toArray()).containsExactly(0, 2, 3);
+    }
+
+    @Test
+    void rejectsAChecksListWithoutActions() throws Exception {
+        Department own = departmentRepository.save(Department.builder().name("Own-" + UUID.randomUUID()).build());
+        String email = saveUser(Role.RoleType.USER, own);
+
+        mockMvc.perform(post("/api/authz/check")
+                .with(user(new org.springframework.security.core.userdetails.User(
+                    email, "", List.of(new SimpleGrantedAuthority("ROLE_USER")))))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"checks\": [{\"departmentId\": " + own.getId() + "}]}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private String saveUser(Role.RoleType roleType, Department department) {
+        Role role = roleRepository.findByName(roleType).orElseGet(() -> {
+            Role created = new Role();
+            created.setName(roleType);
+            return roleRepository.save(created);
+        });
+        return userRepository.save(User.builder()
+            .name("Caller")
+            .email(UUID.randomUUID() + "@example.com")
+            .password("hash")
+            .position("Clerk")
+            .role(role)
+            .departments(new ArrayList<>(List.of(department)))
+            .build()).getEmail();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.auth_service.controller;
+
+import com.example.auth_service.model.Department;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.DepartmentRepository;
+import com.example.auth_service.repository.RoleRepository;
+import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.ReferenceDataCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A Hikari pool of one connection: an endpoint whose after-commit listeners need a second
+ * connection while open-session-in-view still holds the first fails here with a
+ * connection timeout instead of stalling under load. Background jobs are pushed out of
+ * the way so they do not compete for the connection.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:unassign-pool;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.datasource.hikari.ssl=false",
+    "spring.datasource.hikari.maximum-pool-size=1",
+    "spring.datasource.hikari.minimum-idle=1",
+    "spring.datasource.hikari.connection-timeout=2000",
+    "auth.changes.relay-interval=1h",
+    "auth.membership-index.follow-interval=1h",
+    "auth.revocation.refresh-interval=1h"
+})
+@AutoConfigureMockMvc
+class UnassignConnectionPoolTests {
+    private static final org.springframework.security.core.userdetails.User SUPERADMIN =
+        new org.springframework.security.core.userdetails.User(
+            "root@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_SUPERADMIN")));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    @Test
+    void unassignRunsItsListenersOnTheRequestsConnection() throws Exception {
+        Role role = new Role();
+        role.setName(Role.RoleType.USER);
+        role = roleRepository.save(role);
+        Department finance = departmentRepository.save(Department.builder().name("Finance").build());
+        referenceData.refresh();
+        User member = userRepository.save(User.builder()
+            .name("Member")
+            .email(UUID.randomUUID() + "@example.com")
+            .password("hash")
+            .position("Clerk")
+            .role(role)
+            .departments(new ArrayList<>(List.of(finance)))
+            .build());
+
+        mockMvc.perform(post("/api/departments/unassign")
+                .with(user(SUPERADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + member.getId() + ",\"departmentId\":" + finance.getId() + "}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.departments").isEmpty());
+    }
+}
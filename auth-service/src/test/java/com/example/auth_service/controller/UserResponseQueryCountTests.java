@@ -0,0 +1,180 @@
+package com.example.auth_service.controller;
+
+import com.example.auth_service.model.Department;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.DepartmentRepository;
+import com.example.auth_service.repository.RoleRepository;
+import com.example.auth_service.repository.UserRepository;
+import com.example.auth_service.service.ReferenceDataCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements per endpoint that returns a UserResponseDTO, so
+ * lazy loads triggered by serialization cannot creep back in. Counted on the connection,
+ * so the after-commit listeners and JDBC writes of the request are included.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class UserResponseQueryCountTests {
+    private static final org.springframework.security.core.userdetails.User SUPERADMIN =
+        new org.springframework.security.core.userdetails.User(
+            "root@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_SUPERADMIN")));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private ReferenceDataCache referenceData;
+
+    private Department finance;
+    private Department legal;
+    private User target;
+
+    @BeforeEach
+    void setUp() {
+        finance = departmentRepository.save(Department.builder().name("Finance-" + UUID.randomUUID()).build());
+        legal = departmentRepository.save(Department.builder().name("Legal-" + UUID.randomUUID()).build());
+        referenceData.refresh();
+        target = saveUser(Role.RoleType.USER);
+    }
+
+    @Test
+    void updateUserLoadsUserWithDepartmentsInOneQuery() throws Exception {
+        long statements = statementsFor(put("/api/users/user/{id}", target.getId())
+            .with(user(SUPERADMIN))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"Renamed\"}"));
+
+        // select user + role + departments, outbox insert, update user, and after commit the
+        // membership index reloads the user's departments
+        assertThat(statements).isEqualTo(4);
+    }
+
+    @Test
+    void updateAdminLoadsUserWithDepartmentsInOneQuery() throws Exception {
+        User admin = saveUser(Role.RoleType.ADMIN);
+        long statements = statementsFor(put("/api/users/admin/{id}", admin.getId())
+            .with(user(SUPERADMIN))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"Renamed\"}"));
+
+        // select user + role + departments, outbox insert, update user, and after commit the
+        // membership index reloads the user's departments
+        assertThat(statements).isEqualTo(4);
+    }
+
+    @Test
+    void updateSuperAdminLoadsUserWithDepartmentsInOneQuery() throws Exception {
+        User superAdmin = saveUser(Role.RoleType.SUPERADMIN);
+        long statements = statementsFor(put("/api/users/superadmin/{id}", superAdmin.getId())
+            .with(user(SUPERADMIN))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"Renamed\"}"));
+
+        // select user + role + departments, outbox insert, update user, and after commit the
+        // membership index reloads the user's departments
+        assertThat(statements).isEqualTo(4);
+    }
+
+    @Test
+    void updateUserResponseOmitsPasswordAndDocuments() throws Exception {
+        mockMvc.perform(put("/api/users/user/{id}", target.getId())
+                .with(user(SUPERADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"phone\":\"123\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.password").doesNotExist())
+            .andExpect(jsonPath("$.documentsLoaded").doesNotExist())
+            .andExpect(jsonPath("$.departments[0].name").value(finance.getName()));
+    }
+
+    @Test
+    void assignDepartmentDoesNotLazyLoadOnSerialization() throws Exception {
+        long statements = statementsFor(post("/api/departments/assign")
+            .with(user(SUPERADMIN))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"userId\":" + target.getId() + ",\"departmentId\":" + legal.getId() + "}"));
+
+        // select user + role + departments (the department comes from the reference cache), outbox
+        // insert, then the departments bag is rewritten: delete the user's join rows and insert
+        // both again; after commit the membership index reloads the user's departments
+        assertThat(statements).isEqualTo(6);
+    }
+
+    @Test
+    void unassignDepartmentDoesNotLazyLoadOnSerialization() throws Exception {
+        long statements = statementsFor(post("/api/departments/unassign")
+            .with(user(SUPERADMIN))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"userId\":" + target.getId() + ",\"departmentId\":" + finance.getId() + "}"));
+
+        // select user + role + departments (the department comes from the reference cache), outbox
+        // insert, then the departments bag is rewritten: delete the user's join rows, none left to
+        // insert; after commit the membership index reloads the user's departments
+        assertThat(statements).isEqualTo(4);
+    }
+
+    private User saveUser(Role.RoleType roleType) {
+        Role role = roleRepository.findByName(roleType).orElseGet(() -> {
+            Role created = new Role();
+            created.setName(roleType);
+            return roleRepository.save(created);
+        });
+        return userRepository.save(User.builder()
+            .name("Target")
+            .email(UUID.randomUUID() + "@example.com")
+            .password("hash")
+            .position("Clerk")
+            .role(role)
+            .departments(new ArrayList<>(List.of(finance)))
+            .documentsLoaded(new ArrayList<>(List.of("a.pdf", "b.pdf")))
+            .build());
+    }
+
+    // As recorded by QueryCountFilter, so JDBC statements such as the outbox insert count too
+    private long statementsFor(RequestBuilder request) throws Exception {
+        double before = statements();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return Math.round(statements() - before);
+    }
+
+    private double statements() {
+        return meterRegistry.find("http.server.requests.queries").summaries().stream()
+            .mapToDouble(DistributionSummary::totalAmount)
+            .sum();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.auth_service.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator for a running auth-service. Logs in once, then keeps
+ * {@code load.concurrency} clients calling {@code load.path} with the token for
+ * {@code load.duration} and prints throughput and latency percentiles.
+ *
+ * <pre>
+ * java -cp target/test-classes com.example.auth_service.loadtest.LoadDriver \
+ *     -Dload.baseUrl=http://localhost:8080 -Dload.email=... -Dload.password=... \
+ *     -Dload.concurrency=200 -Dload.duration=PT60S -Dload.path=/api/auth/whoami
+ * </pre>
+ */
+public class LoadDriver {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    public LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    public String login(String email, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * Runs {@code concurrency} clients in a closed loop, each sending the next request as
+     * soon as the previous one completes.
+     */
+    public Result run(String name, int concurrency, Duration duration, RequestFactory requests) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>();
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                workers.add(executor.submit(() -> {
+                    LongList latencies = new LongList();
+                    long sequence = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = requests.create(worker, sequence++);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return latencies.toArray();
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        long[] all = workers.stream()
+            .map(LoadDriver::join)
+            .flatMapToLong(Arrays::stream)
+            .sorted()
+            .toArray();
+        return new Result(name, all.length, errors.get(), Duration.ofNanos(elapsed), all);
+    }
+
+    public HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RequestFactory {
+        HttpRequest create(int worker, long sequence);
+    }
+
+    public record Result(String name, long requests, long errors, Duration elapsed, long[] sortedLatencies) {
+        public double throughput() {
+            return requests / (elapsed.toNanos() / 1e9);
+        }
+
+        public Duration percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return Duration.ZERO;
+            }
+            int index = (int) Math.ceil(p / 100.0 * sortedLatencies.length) - 1;
+            return Duration.ofNanos(sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %9d req %6d err %9.1f req/s  p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms",
+                name, requests, errors, throughput(),
+                percentile(50).toNanos() / 1e6, percentile(99).toNanos() / 1e6, percentile(99.9).toNanos() / 1e6);
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadDriver driver = new LoadDriver(System.getProperty("load.baseUrl", "http://localhost:8080"));
+        String token = driver.login(System.getProperty("load.email"), System.getProperty("load.password"));
+        String path = System.getProperty("load.path", "/api/auth/whoami");
+        int concurrency = Integer.getInteger("load.concurrency", 200);
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+
+        Result result = driver.run(System.getProperty("load.name", path), concurrency, duration,
+            (worker, sequence) -> driver.request(path).header("Authorization", "Bearer " + token).GET().build());
+        System.out.println(result);
+    }
+}
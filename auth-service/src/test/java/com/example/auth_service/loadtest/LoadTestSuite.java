@@ -0,0 +1,238 @@
+package com.example.auth_service.loadtest;
+
+import com.example.auth_service.AuthServiceApplication;
+import com.example.auth_service.service.CustomUserDetailsService;
+import com.example.auth_service.service.DepartmentMembershipIndex;
+import com.example.auth_service.service.JwtService;
+import com.example.auth_service.service.ReferenceDataCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test: starts auth-service on a random port against a fresh Postgres,
+ * seeds {@code load.users} users spread over {@code load.departments} departments, then
+ * runs each scenario with {@link LoadDriver} and prints throughput, latency percentiles
+ * and SQL statements per request.
+ *
+ * <ul>
+ *   <li>{@code login-storm}: logins of random seeded users, so every request pays for BCrypt.</li>
+ *   <li>{@code authenticated-reads}: whoami with user tokens and department membership reads
+ *       with an admin token.</li>
+ *   <li>{@code department-assignments}: an admin assigning and unassigning random users.</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dload.users=10000 -Dload.departments=200
+ * </pre>
+ *
+ * Postgres is started with Testcontainers, which needs Docker. To use a local server
+ * instead, point {@code load.jdbcUrl} (and {@code load.jdbcUsername}/{@code load.jdbcPassword})
+ * at an empty database. Program arguments are passed on to the application, e.g.
+ * {@code --spring.threads.virtual.enabled=true}.
+ */
+public class LoadTestSuite {
+    private static final String PASSWORD = "load-test-password";
+    private static final String ADMIN_EMAIL = "load-admin@loadtest.local";
+    private static final int BATCH_SIZE = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final LoadDriver driver;
+    private final int users;
+    private final int departments;
+    private long[] userIds;
+    private long[] departmentIds;
+
+    LoadTestSuite(ConfigurableApplicationContext context, int users, int departments) {
+        this.context = context;
+        this.driver = new LoadDriver("http://localhost:"
+            + ((WebServerApplicationContext) context).getWebServer().getPort());
+        this.users = users;
+        this.departments = departments;
+    }
+
+    /**
+     * Inserts the roles, departments, users and memberships with batched JDBC, reusing one
+     * password hash, then reloads the caches that were built from the empty database.
+     */
+    void seed(long randomSeed) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        Random random = new Random(randomSeed);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            for (String role : List.of("SUPERADMIN", "ADMIN", "USER")) {
+                jdbc.update("INSERT INTO role (name) VALUES (?) ON CONFLICT (name) DO NOTHING", role);
+            }
+            jdbc.batchUpdate("INSERT INTO department (name) VALUES (?)", IntStream.range(0, departments).boxed().toList(),
+                BATCH_SIZE, (ps, i) -> ps.setString(1, "loadtest-department-" + i));
+
+            String insertUser = "INSERT INTO users (name, email, password, position, role_id, status, token_version) "
+                + "VALUES (?, ?, ?, 'Load test', (SELECT id FROM role WHERE name = ?), 'active', 0)";
+            jdbc.update(insertUser, "Load admin", ADMIN_EMAIL, hash, "SUPERADMIN");
+            jdbc.batchUpdate(insertUser, IntStream.range(0, users).boxed().toList(), BATCH_SIZE, (ps, i) -> {
+                ps.setString(1, "Load user " + i);
+                ps.setString(2, email(i));
+                ps.setString(3, hash);
+                ps.setString(4, "USER");
+            });
+
+            userIds = jdbc.queryForList("SELECT id FROM users WHERE email LIKE 'load-user-%' ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+            departmentIds = jdbc.queryForList("SELECT id FROM department WHERE name LIKE 'loadtest-department-%' ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+            // One to three distinct departments per user
+            List<long[]> memberships = new ArrayList<>();
+            for (long userId : userIds) {
+                random.ints(0, departmentIds.length).distinct().limit(Math.min(1 + random.nextInt(3), departmentIds.length))
+                    .forEach(d -> memberships.add(new long[] {userId, departmentIds[d]}));
+            }
+            jdbc.batchUpdate("INSERT INTO user_departments (user_id, department_id) VALUES (?, ?)", memberships, BATCH_SIZE,
+                (ps, membership) -> {
+                    ps.setLong(1, membership[0]);
+                    ps.setLong(2, membership[1]);
+                });
+        });
+        context.getBean(ReferenceDataCache.class).refresh();
+        context.getBean(DepartmentMembershipIndex.class).rebuild();
+    }
+
+    /**
+     * Runs a scenario once unmeasured to warm up the JIT and caches, then once measured.
+     */
+    String run(String scenario, int concurrency, Duration warmup, Duration duration) throws Exception {
+        LoadDriver.RequestFactory requests = requests(scenario);
+        driver.run(scenario, concurrency, warmup, requests);
+        double statementsBefore = statements();
+        LoadDriver.Result result = driver.run(scenario, concurrency, duration, requests);
+        double perRequest = result.requests() == 0 ? 0 : (statements() - statementsBefore) / result.requests();
+        return String.format("%s  %6.2f sql/req", result, perRequest);
+    }
+
+    private LoadDriver.RequestFactory requests(String scenario) {
+        return switch (scenario) {
+            case "login-storm" -> (worker, sequence) -> {
+                String body = String.format("{\"email\":\"%s\",\"password\":\"%s\"}",
+                    email(new SplittableRandom((long) worker << 32 | sequence).nextInt(users)), PASSWORD);
+                return driver.request("/api/auth/login")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            };
+            case "authenticated-reads" -> {
+                // Tokens are minted in-process; logging in would make this a second login storm
+                String[] tokens = IntStream.range(0, Math.min(users, 1000)).mapToObj(i -> token(email(i))).toArray(String[]::new);
+                // Membership reads are for admins only
+                String adminToken = token(ADMIN_EMAIL);
+                yield (worker, sequence) -> {
+                    SplittableRandom random = new SplittableRandom((long) worker << 32 | sequence);
+                    int user = random.nextInt(tokens.length);
+                    long departmentId = departmentIds[random.nextInt(departmentIds.length)];
+                    int pick = random.nextInt(10);
+                    String path = pick < 6 ? "/api/auth/whoami"
+                        : pick < 8 ? "/api/departments/" + departmentId + "/members/count"
+                        : "/api/departments/" + departmentId + "/members/" + userIds[user];
+                    String token = pick < 6 ? tokens[user] : adminToken;
+                    return driver.request(path).header("Authorization", "Bearer " + token).GET().build();
+                };
+            }
+            case "department-assignments" -> {
+                String token = token(ADMIN_EMAIL);
+                yield (worker, sequence) -> {
+                    // Each pair is assigned, then unassigned on the worker's next request
+                    SplittableRandom random = new SplittableRandom((long) worker << 32 | sequence / 2);
+                    String body = String.format("{\"userId\":%d,\"departmentId\":%d}",
+                        userIds[random.nextInt(userIds.length)], departmentIds[random.nextInt(departmentIds.length)]);
+                    return driver.request(sequence % 2 == 0 ? "/api/departments/assign" : "/api/departments/unassign")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        };
+    }
+
+    private String token(String email) {
+        return context.getBean(JwtService.class)
+            .generateToken(context.getBean(CustomUserDetailsService.class).loadUserByUsername(email));
+    }
+
+    // Statements run on request threads, as counted by QueryCountFilter
+    private double statements() {
+        return context.getBean(MeterRegistry.class).find("http.server.requests.queries").summaries().stream()
+            .mapToDouble(DistributionSummary::totalAmount)
+            .sum();
+    }
+
+    private static String email(int i) {
+        return "load-user-" + i + "@loadtest.local";
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 1000);
+        int departments = Integer.getInteger("load.departments", 50);
+        int concurrency = Integer.getInteger("load.concurrency", 100);
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        List<String> scenarios = Arrays.asList(System.getProperty("load.scenarios",
+            "login-storm,authenticated-reads,department-assignments").split(","));
+
+        PostgreSQLContainer<?> postgres = null;
+        String jdbcUrl = System.getProperty("load.jdbcUrl");
+        String username = System.getProperty("load.jdbcUsername", "postgres");
+        String password = System.getProperty("load.jdbcPassword", "postgres");
+        if (jdbcUrl == null || jdbcUrl.isBlank()) {
+            postgres = new PostgreSQLContainer<>(DockerImageName.parse(System.getProperty("load.postgresImage", "postgres:16-alpine")));
+            postgres.start();
+            jdbcUrl = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+
+        String[] applicationArgs = Stream.concat(Stream.of(
+            "--server.port=0",
+            "--management.server.port=0",
+            "--spring.datasource.url=" + jdbcUrl,
+            "--spring.datasource.username=" + username,
+            "--spring.datasource.password=" + password,
+            // Every request comes from one address; the login storm measures login, not the limiter
+            "--auth.login-rate-limit.ip.limit=65535",
+            "--auth.login-rate-limit.ip.window=1s",
+            "--auth.login-rate-limit.email.limit=65535",
+            "--auth.login-rate-limit.email.window=1s"), Arrays.stream(args)).toArray(String[]::new);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AuthServiceApplication.class).run(applicationArgs)) {
+            LoadTestSuite suite = new LoadTestSuite(context, users, departments);
+            long seedStart = System.nanoTime();
+            suite.seed(Long.getLong("load.seed", 42));
+            System.out.printf("Seeded %d users in %d departments in %d ms (concurrency %d, %s per scenario)%n",
+                users, departments, (System.nanoTime() - seedStart) / 1_000_000, concurrency, duration);
+            for (String scenario : scenarios) {
+                System.out.println(suite.run(scenario.trim(), concurrency, warmup, duration));
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.Role.RoleType;
+import com.example.auth_service.service.AccessDecisionTable.Action;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessDecisionTableTests {
+
+    @Test
+    void superAdminIsAllowedEverythingEverywhere() {
+        for (Action action : Action.values()) {
+            assertThat(AccessDecisionTable.isAllowed(RoleType.SUPERADMIN, action, false, null)).isTrue();
+            assertThat(AccessDecisionTable.isAllowed(RoleType.SUPERADMIN, action, true, null)).isTrue();
+            assertThat(AccessDecisionTable.isAllowed(RoleType.SUPERADMIN, action, false, RoleType.SUPERADMIN)).isTrue();
+        }
+    }
+
+    @Test
+    void adminWorksWithDocumentsOfOwnDepartmentsOnly() {
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.DELETE, true, null)).isTrue();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.READ, false, null)).isFalse();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.MANAGE_DEPARTMENT, true, null)).isFalse();
+    }
+
+    @Test
+    void adminAssignsRegularUsersOnly() {
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.ASSIGN_MEMBERS, false, RoleType.USER)).isTrue();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.ASSIGN_MEMBERS, true, RoleType.ADMIN)).isFalse();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.ASSIGN_MEMBERS, true, RoleType.SUPERADMIN)).isFalse();
+        // Without a target role an Admin cannot be shown to be allowed
+        assertThat(AccessDecisionTable.isAllowed(RoleType.ADMIN, Action.ASSIGN_MEMBERS, true, null)).isFalse();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.SUPERADMIN, Action.ASSIGN_MEMBERS, false, null)).isTrue();
+    }
+
+    @Test
+    void userReadsAndWritesOwnDepartmentsOnly() {
+        assertThat(AccessDecisionTable.isAllowed(RoleType.USER, Action.READ, true, null)).isTrue();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.USER, Action.WRITE, true, null)).isTrue();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.USER, Action.WRITE, false, null)).isFalse();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.USER, Action.DELETE, true, null)).isFalse();
+        assertThat(AccessDecisionTable.isAllowed(RoleType.USER, Action.ASSIGN_MEMBERS, true, RoleType.USER)).isFalse();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.auth_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+    @Test
+    void neverMissesAnAddedValue() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            String jti = UUID.nameUUIDFromBytes(new byte[] {(byte) i, (byte) (i >> 8)}).toString();
+            filter.add(jti);
+            assertThat(filter.mightContain(jti)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("revoked-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
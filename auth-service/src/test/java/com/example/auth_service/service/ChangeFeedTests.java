@@ -0,0 +1,87 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.ChangeEventDTO;
+import com.example.auth_service.dto.ChangeFeedDTO;
+import com.example.auth_service.model.ChangeEvent;
+import com.example.auth_service.service.ChangeOutbox.Change;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The relay and pruning are only run by the tests themselves
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "auth.changes.relay-interval=1h",
+    "auth.changes.retention=0s",
+    "auth.changes.batch-size=2"
+})
+@AutoConfigureTestDatabase
+class ChangeFeedTests {
+    @Autowired
+    private ChangeOutbox changeOutbox;
+    @Autowired
+    private ChangeFeed changeFeed;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void publishesCommittedEventsInOrderAndSkipsRolledBackOnes() {
+        long since = changeFeed.head();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> changeOutbox.record(List.of(
+            Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, 1L, 10L),
+            Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, 1L, 11L),
+            Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_REMOVED, 1L, 10L))));
+        transaction.executeWithoutResult(status -> {
+            changeOutbox.record(Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, 2L, 10L));
+            status.setRollbackOnly();
+        });
+        assertThat(changeFeed.read(since, 10).items()).isEmpty();
+
+        // More events than one batch
+        changeFeed.relay();
+
+        ChangeFeedDTO first = changeFeed.read(since, 2);
+        assertThat(first.items()).extracting(ChangeEventDTO::position).containsExactly(since + 1, since + 2);
+        ChangeFeedDTO rest = changeFeed.read(first.nextCursor(), 10);
+        assertThat(rest.items()).singleElement().satisfies(event -> {
+            assertThat(event.type()).isEqualTo(ChangeEvent.Type.DEPARTMENT_MEMBER_REMOVED);
+            assertThat(event.aggregateId()).isEqualTo(1L);
+            assertThat(event.payload()).isEqualTo("{\"userId\":1,\"departmentId\":10}");
+        });
+        assertThat(changeFeed.read(rest.nextCursor(), 10)).isEqualTo(new ChangeFeedDTO(List.of(), since + 3));
+    }
+
+    @Test
+    void requiresTheCallersTransaction() {
+        assertThatThrownBy(() -> changeOutbox.record(Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, 1L, 10L)))
+            .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    void cursorsOlderThanTheRetentionAreGone() {
+        long since = changeFeed.head();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> changeOutbox.record(List.of(
+            Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, 3L, 10L),
+            Change.membership(ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, 3L, 11L))));
+        changeFeed.relay();
+        changeFeed.prune();
+
+        assertThatThrownBy(() -> changeFeed.read(since, 10))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GONE));
+        // The newest event is kept, so consumers that are up to date carry on
+        assertThat(changeFeed.read(since + 1, 10).items()).extracting(ChangeEventDTO::position).containsExactly(since + 2);
+    }
+}
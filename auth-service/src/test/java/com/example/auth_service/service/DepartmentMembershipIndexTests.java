@@ -0,0 +1,194 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.dto.AuthResponse;
+import com.example.auth_service.dto.SignupRequest;
+import com.example.auth_service.model.ChangeEvent;
+import com.example.auth_service.model.Department;
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.DepartmentRepository;
+import com.example.auth_service.repository.RoleRepository;
+import com.example.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every write path must leave the index agreeing with user_departments without a rebuild
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "auth.membership-index.refresh-interval=1h",
+    "auth.membership-index.follow-interval=1h"
+})
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class DepartmentMembershipIndexTests {
+    private static final org.springframework.security.core.userdetails.User SUPERADMIN =
+        new org.springframework.security.core.userdetails.User(
+            "root@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_SUPERADMIN")));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DepartmentMembershipIndex membershipIndex;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private ReferenceDataCache referenceData;
+    @Autowired
+    private ChangeOutbox changeOutbox;
+    @Autowired
+    private ChangeFeed changeFeed;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Department finance;
+    private Department legal;
+    private Role userRole;
+
+    @BeforeEach
+    void setUp() {
+        userRole = roleRepository.findByName(Role.RoleType.USER).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(Role.RoleType.USER);
+            return roleRepository.save(role);
+        });
+        finance = departmentRepository.save(Department.builder().name("Finance-" + UUID.randomUUID()).build());
+        legal = departmentRepository.save(Department.builder().name("Legal-" + UUID.randomUUID()).build());
+        referenceData.refresh();
+    }
+
+    @Test
+    void signupAddsTheNewUsersDepartments() {
+        SignupRequest request = new SignupRequest();
+        request.setName("New");
+        request.setEmail(UUID.randomUUID() + "@example.com");
+        request.setPassword("secret");
+        request.setPosition("Clerk");
+        request.setRole("USER");
+        request.setDepartmentIds(List.of(finance.getId(), legal.getId()));
+
+        AuthResponse response = authService.signup(request);
+
+        long userId = userRepository.findByEmail(response.getEmail()).orElseThrow().getId();
+        assertThat(membershipIndex.isMember(userId, finance.getId())).isTrue();
+        assertThat(membershipIndex.isMember(userId, legal.getId())).isTrue();
+        assertThat(membershipIndex.count(finance.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void assignAndUnassignAreVisibleImmediately() throws Exception {
+        User member = saveUser(finance);
+        membershipIndex.rebuild();
+
+        mockMvc.perform(post("/api/departments/assign")
+                .with(user(SUPERADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + member.getId() + ",\"departmentId\":" + legal.getId() + "}"))
+            .andExpect(status().isOk());
+        assertThat(membershipIndex.isMember(member.getId(), legal.getId())).isTrue();
+
+        mockMvc.perform(post("/api/departments/unassign")
+                .with(user(SUPERADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + member.getId() + ",\"departmentId\":" + finance.getId() + "}"))
+            .andExpect(status().isOk());
+        assertThat(membershipIndex.isMember(member.getId(), finance.getId())).isFalse();
+        assertThat(membershipIndex.isMember(member.getId(), legal.getId())).isTrue();
+    }
+
+    @Test
+    void deletingADepartmentDropsItsMembers() throws Exception {
+        User member = saveUser(finance);
+        membershipIndex.rebuild();
+        assertThat(membershipIndex.count(finance.getId())).isEqualTo(1);
+
+        mockMvc.perform(delete("/api/departments/{id}", finance.getId()).with(user(SUPERADMIN)))
+            .andExpect(status().isNoContent());
+
+        assertThat(membershipIndex.isMember(member.getId(), finance.getId())).isFalse();
+        assertThat(membershipIndex.count(finance.getId())).isZero();
+        assertThat(referenceData.department(finance.getId())).isEmpty();
+    }
+
+    @Test
+    void followsMembershipChangesMadeThroughOtherInstances() {
+        User member = saveUser(finance);
+        membershipIndex.rebuild();
+
+        // Committed by another instance: the row and its event, but no UserChangedEvent here
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO user_departments (user_id, department_id) VALUES (?, ?)",
+                member.getId(), legal.getId());
+            changeOutbox.record(ChangeOutbox.Change.membership(
+                ChangeEvent.Type.DEPARTMENT_MEMBER_ADDED, member.getId(), legal.getId()));
+        });
+        assertThat(membershipIndex.isMember(member.getId(), legal.getId())).isFalse();
+
+        changeFeed.relay();
+        membershipIndex.follow();
+
+        assertThat(membershipIndex.isMember(member.getId(), legal.getId())).isTrue();
+        assertThat(membershipIndex.isMember(member.getId(), finance.getId())).isTrue();
+    }
+
+    @Test
+    void membershipQueriesAreForAdminsOnly() throws Exception {
+        User member = saveUser(finance);
+        membershipIndex.rebuild();
+
+        mockMvc.perform(get("/api/departments/{id}/members/{userId}", finance.getId(), member.getId())
+                .with(user(member.getEmail()).roles("USER")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/departments/{id}/members/count", finance.getId())
+                .with(user(member.getEmail()).roles("USER")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/departments/members/intersection")
+                .param("departmentIds", finance.getId().toString())
+                .with(user(member.getEmail()).roles("USER")))
+            .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/departments/{id}/members", finance.getId()).with(user("admin@example.com").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(1));
+    }
+
+    private User saveUser(Department department) {
+        return userRepository.save(User.builder()
+            .name("Member")
+            .email(UUID.randomUUID() + "@example.com")
+            .password("hash")
+            .position("Clerk")
+            .role(userRole)
+            .departments(new ArrayList<>(List.of(department)))
+            .build());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.config.JwtKeyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class JwtKeyRingTests {
+    private final VerifiedTokenCache tokenCache = new VerifiedTokenCache(100, new SimpleMeterRegistry());
+
+    @Test
+    void refusesToStartWithoutAConfiguredKey() {
+        assertThatIllegalStateException()
+            .isThrownBy(() -> new JwtKeyRing(new JwtKeyProperties(null, null, null, false), tokenCache))
+            .withMessageContaining("No JWT signing key configured");
+    }
+
+    @Test
+    void usesTheBuiltInKeyOnlyWhenAllowed() {
+        JwtKeyRing keyRing = new JwtKeyRing(new JwtKeyProperties(null, null, null, true), tokenCache);
+        assertThat(keyRing.signingKey().id()).isEqualTo(JwtKeyRing.LEGACY_KEY_ID);
+        assertThat(keyRing.publicKeys()).isEmpty();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginAuditWriterTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private LoginAuditWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (email VARCHAR(255) PRIMARY KEY, last_login TIMESTAMP)");
+        // The CHECK stands in for any row the database refuses
+        jdbcTemplate.execute("CREATE TABLE login_audit (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "email VARCHAR(255) NOT NULL CHECK (email <> 'poison@example.com'), success BOOLEAN NOT NULL, "
+            + "client_ip VARCHAR(45), occurred_at TIMESTAMP WITH TIME ZONE NOT NULL)");
+        jdbcTemplate.update("INSERT INTO users (email) VALUES ('alice@example.com'), ('bob@example.com')");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.destroy();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void writesEveryEventAndTheLatestSuccessfulLoginPerUser() throws InterruptedException {
+        writer = writer(100, 500, Duration.ofSeconds(10));
+        writer.record("alice@example.com", true, "10.0.0.1");
+        writer.record("alice@example.com", false, "10.0.0.1");
+        writer.record("alice@example.com", true, "10.0.0.2");
+        writer.record("bob@example.com", false, "10.0.0.3");
+        writer.destroy();
+
+        assertThat(count("SELECT COUNT(*) FROM login_audit")).isEqualTo(4);
+        assertThat(meterRegistry.get("auth.login.audit.written").counter().count()).isEqualTo(4);
+        // Coalesced into one update carrying the later of Alice's two successful logins
+        OffsetDateTime latest = jdbcTemplate.queryForObject(
+            "SELECT MAX(occurred_at) FROM login_audit WHERE email = 'alice@example.com' AND success",
+            OffsetDateTime.class);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT last_login FROM users WHERE email = 'alice@example.com'", LocalDateTime.class))
+            .isEqualTo(LocalDateTime.ofInstant(latest.toInstant(), ZoneId.systemDefault()));
+        // Failed attempts do not count as a login
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT last_login FROM users WHERE email = 'bob@example.com'", LocalDateTime.class)).isNull();
+    }
+
+    @Test
+    void aRejectedRowOnlyDropsItself() throws InterruptedException {
+        writer = writer(100, 500, Duration.ofSeconds(10));
+        writer.record("alice@example.com", true, "10.0.0.1");
+        writer.record("poison@example.com", false, "10.0.0.1");
+        writer.record("x".repeat(1000) + "@example.com", false, "10.0.0.1");
+        writer.record("bob@example.com", true, "10.0.0.2");
+        writer.destroy();
+
+        assertThat(count("SELECT COUNT(*) FROM login_audit")).isEqualTo(3);
+        // Cut to the column size instead of failing the batch
+        assertThat(count("SELECT COUNT(*) FROM login_audit WHERE LENGTH(email) = 255")).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM users WHERE last_login IS NOT NULL")).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.login.audit.dropped").tag("reason", "flush_failed").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void dropsEventsInsteadOfWaitingWhenTheQueueIsFull() throws InterruptedException {
+        writer = writer(1, 1, Duration.ofSeconds(10));
+        for (int i = 0; i < 1000; i++) {
+            writer.record("alice@example.com", false, "10.0.0.1");
+        }
+        writer.destroy();
+
+        double dropped = meterRegistry.get("auth.login.audit.dropped").tag("reason", "queue_full").counter().count();
+        assertThat(dropped).isPositive();
+        assertThat(count("SELECT COUNT(*) FROM login_audit") + dropped).isEqualTo(1000);
+    }
+
+    private LoginAuditWriter writer(int queueCapacity, int batchSize, Duration flushInterval) {
+        return new LoginAuditWriter(jdbcTemplate, new DataSourceTransactionManager(dataSource), meterRegistry,
+            queueCapacity, batchSize, flushInterval);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginRateLimiterTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginRateLimiter limiter = new LoginRateLimiter(
+        meterRegistry, 3, Duration.ofMinutes(5), 5, Duration.ofMinutes(1), 1000);
+
+    @Test
+    void rejectsAttemptsPerEmailOverTheLimit() {
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("Alice@example.com", "10.0.0." + i);
+        }
+        assertThatThrownBy(() -> limiter.acquire("alice@example.com", "10.0.0.9"))
+            .isInstanceOfSatisfying(LoginRateLimiter.TooManyAttemptsException.class, e -> {
+                assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                assertThat(Long.parseLong(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))).isPositive();
+            });
+        // Other accounts are unaffected
+        limiter.acquire("bob@example.com", "10.0.0.9");
+        assertThat(meterRegistry.get("auth.login.rate_limited").tag("key", "email").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAttemptsPerIpAcrossEmails() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("user" + i + "@example.com", "10.0.0.1");
+        }
+        assertThatThrownBy(() -> limiter.acquire("other@example.com", "10.0.0.1"))
+            .isInstanceOf(LoginRateLimiter.TooManyAttemptsException.class);
+        limiter.acquire("other@example.com", "10.0.0.2");
+    }
+}
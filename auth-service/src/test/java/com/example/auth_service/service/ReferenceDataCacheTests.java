@@ -0,0 +1,41 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.Department;
+import com.example.auth_service.repository.DepartmentRepository;
+import com.example.auth_service.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceDataCacheTests {
+    private final RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+    private final DepartmentRepository departmentRepository = Mockito.mock(DepartmentRepository.class);
+    private final ReferenceDataCache cache = new ReferenceDataCache(roleRepository, departmentRepository);
+
+    @Test
+    void aDepartmentSavedDuringARefreshNeitherWaitsForItNorIsLost() {
+        Department finance = Department.builder().id(1L).name("Finance").build();
+        Department legal = Department.builder().id(2L).name("Legal").build();
+        Department hr = Department.builder().id(3L).name("HR").build();
+        cache.departmentSaved(legal);
+
+        // Saved and deleted by requests while the refresh is querying, so its result misses both
+        Mockito.when(departmentRepository.findAll()).thenAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> {
+                cache.departmentSaved(hr);
+                cache.departmentDeleted(legal.getId());
+            }).get(5, TimeUnit.SECONDS);
+            return List.of(finance, legal);
+        });
+        cache.refresh();
+
+        assertThat(cache.departmentExists("Finance")).isTrue();
+        assertThat(cache.departmentExists("HR")).isTrue();
+        assertThat(cache.departmentExists("Legal")).isFalse();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.model.Role;
+import com.example.auth_service.model.User;
+import com.example.auth_service.repository.RoleRepository;
+import com.example.auth_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class RefreshTokenServiceTests {
+    private static final org.springframework.security.core.userdetails.User SUPERADMIN =
+        new org.springframework.security.core.userdetails.User(
+            "root@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_SUPERADMIN")));
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.findByName(Role.RoleType.USER).orElseGet(() -> {
+            Role created = new Role();
+            created.setName(Role.RoleType.USER);
+            return roleRepository.save(created);
+        });
+        owner = userRepository.save(User.builder()
+            .name("Owner")
+            .email(UUID.randomUUID() + "@example.com")
+            .password("hash")
+            .position("Clerk")
+            .role(role)
+            .departments(new ArrayList<>())
+            .build());
+    }
+
+    @Test
+    void presentingARotatedTokenAgainRevokesTheFamily() throws Exception {
+        String first = refreshTokenService.issue(owner.getEmail());
+        String second = successor(refresh(first).andExpect(status().isOk()));
+
+        refresh(first).andExpect(status().isUnauthorized());
+
+        // The legitimate holder of the successor is logged out too
+        refresh(second).andExpect(status().isUnauthorized());
+        assertThat(activeTokens()).isZero();
+    }
+
+    @Test
+    void revocationIsCommittedAlthoughTheRotationFails() throws Exception {
+        String first = refreshTokenService.issue(owner.getEmail());
+        refresh(first).andExpect(status().isOk());
+
+        refresh(first).andExpect(status().isUnauthorized());
+
+        // Read after the rotation's transaction ended: rolled back, the successor would still be active
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT revoked FROM refresh_tokens WHERE user_id = ?", Boolean.class, owner.getId()))
+            .hasSize(2)
+            .containsOnly(true);
+    }
+
+    @Test
+    void tokensIssuedBeforeAPasswordResetAreRejected() throws Exception {
+        String token = refreshTokenService.issue(owner.getEmail());
+
+        mockMvc.perform(post("/api/auth/admin/change-password")
+                .with(user(SUPERADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + owner.getId() + ",\"newPassword\":\"changed\"}"))
+            .andExpect(status().isOk());
+
+        refresh(token).andExpect(status().isUnauthorized());
+        assertThat(activeTokens()).isZero();
+    }
+
+    private ResultActions refresh(String token) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"" + token + "\"}"));
+    }
+
+    private String successor(ResultActions response) throws Exception {
+        return objectMapper.readTree(response.andReturn().getResponse().getContentAsString())
+            .get("refreshToken").asText();
+    }
+
+    private int activeTokens() {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ? AND revoked = FALSE", Integer.class, owner.getId());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.repository.RefreshTokenRepository;
+import com.example.auth_service.repository.RevokedTokenRepository;
+import com.example.auth_service.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Refreshes are only run by the tests themselves
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "auth.revocation.refresh-interval=1h",
+    "auth.revocation.rebuild-interval=1h"
+})
+@AutoConfigureTestDatabase
+class TokenRevocationServiceTests {
+    @Autowired
+    private TokenRevocationService revocationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void picksUpARowThatCommitsAfterAHigherId() {
+        String first = UUID.randomUUID().toString();
+        String late = UUID.randomUUID().toString();
+
+        // As revoked by another instance: the higher id commits first
+        insert(1_000_002, first);
+        revocationService.refresh();
+        insert(1_000_001, late);
+        revocationService.refresh();
+
+        assertThat(revocationService.isRevoked(claims(first))).isTrue();
+        assertThat(revocationService.isRevoked(claims(late))).isTrue();
+        assertThat(revocationService.isRevoked(claims(UUID.randomUUID().toString()))).isFalse();
+    }
+
+    @Test
+    void aLogoutDuringARebuildNeitherWaitsForItNorIsLost() {
+        RevokedTokenRepository revokedTokens = Mockito.mock(RevokedTokenRepository.class);
+        JdbcTemplate scan = Mockito.mock(JdbcTemplate.class);
+        TokenRevocationService service = new TokenRevocationService(revokedTokens,
+            Mockito.mock(RefreshTokenRepository.class), Mockito.mock(UserRepository.class),
+            Mockito.mock(TokenVersionRegistry.class), scan, Mockito.mock(PlatformTransactionManager.class),
+            Mockito.mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(),
+            1000, 0.001, 1000, Duration.ofMinutes(1));
+        String jti = UUID.randomUUID().toString();
+
+        // The logout commits while the rebuild is scanning, so the scan does not return it
+        Mockito.doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> logout(service, jti)).get(5, TimeUnit.SECONDS);
+            return null;
+        }).when(scan).query(Mockito.anyString(), Mockito.any(RowCallbackHandler.class), Mockito.any());
+        service.rebuild();
+
+        Mockito.when(revokedTokens.existsByJti(jti)).thenReturn(true);
+        assertThat(service.isRevoked(claims(jti))).isTrue();
+    }
+
+    // What the @Transactional proxy does around revoke(), up to the after-commit callbacks
+    private static void logout(TokenRevocationService service, String jti) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.revoke(Jwts.claims().id(jti).expiration(Date.from(Instant.now().plus(15, ChronoUnit.MINUTES)))
+                .build());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void insert(long id, String jti) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.update(
+            "INSERT INTO revoked_tokens (id, jti, expires_at) VALUES (?, ?, ?)",
+            id, jti, Timestamp.from(Instant.now().plus(15, ChronoUnit.MINUTES))));
+    }
+
+    private static Claims claims(String jti) {
+        return Jwts.claims().id(jti).subject("nobody@example.com").issuedAt(new Date()).build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.auth_service.service;
+
+import com.example.auth_service.event.UserChangedEvent;
+import com.example.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenVersionRegistryTests {
+    private static final String EMAIL = "alice@example.com";
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+
+    @Test
+    void changesFromOtherInstancesAreSeenOnceTheEntryExpires() throws InterruptedException {
+        TokenVersionRegistry registry = new TokenVersionRegistry(userRepository, 100, Duration.ofMillis(50));
+        Mockito.when(userRepository.findTokenStateByEmail(EMAIL)).thenReturn(Optional.of(state(1)));
+        assertThat(registry.isCurrent(EMAIL, 1)).isTrue();
+
+        // Bumped by another instance: no UserChangedEvent here
+        Mockito.when(userRepository.findTokenStateByEmail(EMAIL)).thenReturn(Optional.of(state(2)));
+        assertThat(registry.isCurrent(EMAIL, 1)).isTrue();
+        Thread.sleep(100);
+        assertThat(registry.isCurrent(EMAIL, 1)).isFalse();
+    }
+
+    @Test
+    void aLoadOverlappingAnInvalidationIsNotKept() {
+        TokenVersionRegistry registry = new TokenVersionRegistry(userRepository, 100, Duration.ofMinutes(5));
+        // The change commits and is announced while the query still returns the old version
+        Mockito.when(userRepository.findTokenStateByEmail(EMAIL)).thenAnswer(invocation -> {
+            registry.onUserChanged(new UserChangedEvent(7L, EMAIL));
+            return Optional.of(state(1));
+        });
+        assertThat(registry.isCurrent(EMAIL, 1)).isTrue();
+
+        Mockito.when(userRepository.findTokenStateByEmail(EMAIL)).thenReturn(Optional.of(state(2)));
+        assertThat(registry.isCurrent(EMAIL, 1)).isFalse();
+    }
+
+    private static UserRepository.TokenVersionView state(int version) {
+        return new UserRepository.TokenVersionView() {
+            @Override
+            public String getEmail() {
+                return EMAIL;
+            }
+
+            @Override
+            public int getTokenVersion() {
+                return version;
+            }
+
+            @Override
+            public Instant getTokensValidAfter() {
+                return null;
+            }
+        };
+    }
+}